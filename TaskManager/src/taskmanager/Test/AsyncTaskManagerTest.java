@@ -0,0 +1,102 @@
+package taskmanager.test;
+
+import taskmanager.managers.AsyncTaskManager;
+import taskmanager.managers.ConcurrentTaskManager;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+import taskmanager.tasks.TaskType;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncTaskManagerTest {
+    private static final int TASKS = 100;
+    private static final int VERSIONS = 100;
+
+    @Test
+    public void testMutationsOfOneTaskKeepCallOrder() {
+        try (AsyncTaskManager manager = new AsyncTaskManager(new ConcurrentTaskManager())) {
+            List<CompletableFuture<Integer>> added = new ArrayList<>();
+            for (int i = 0; i < TASKS; i++) {
+                added.add(manager.addNewTask(new Task("Task " + i, "v0")));
+            }
+            CompletableFuture.allOf(added.toArray(new CompletableFuture<?>[0])).join();
+
+            // 10 000 операций в полёте одновременно, по 100 версий на задачу
+            List<CompletableFuture<Void>> updates = new ArrayList<>();
+            for (int version = 1; version <= VERSIONS; version++) {
+                for (CompletableFuture<Integer> id : added) {
+                    updates.add(manager.updateTask(new Task(id.join(), "Task", "v" + version)));
+                }
+            }
+            CompletableFuture.allOf(updates.toArray(new CompletableFuture<?>[0])).join();
+
+            for (CompletableFuture<Integer> id : added) {
+                assertEquals("v" + VERSIONS, manager.getTask(id.join()).join().getDescription());
+            }
+        }
+    }
+
+    @Test
+    public void testFailureDoesNotBreakTheQueue() throws Exception {
+        try (AsyncTaskManager manager = new AsyncTaskManager(new ConcurrentTaskManager())) {
+            CompletableFuture<Void> missing = manager.updateTask(new Task(42, "Missing", "Description"));
+            ExecutionException error = assertThrows(ExecutionException.class, () -> missing.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, error.getCause());
+            assertNull(manager.getTask(42).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testExclusiveOperationWaitsForRunningOnes() throws Exception {
+        try (AsyncTaskManager manager = new AsyncTaskManager(new ConcurrentTaskManager())) {
+            int id = manager.addNewTask(new Task("Task", "Description")).join();
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Void> slow = manager.batch(tx -> {
+                started.countDown();
+                await(release);
+            });
+            started.await();
+            CompletableFuture<Task> read = manager.getTask(id);
+            Thread.sleep(50);
+            assertFalse(read.isDone(), "Reads should wait for the exclusive batch.");
+            release.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+            assertNotNull(read.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testQueriesGoThroughTheFacade() {
+        try (AsyncTaskManager manager = new AsyncTaskManager(new ConcurrentTaskManager())) {
+            int milkId = manager.addNewTask(new Task("Купить молоко", "Магазин")).join();
+            Task bread = new Task("Купить хлеб", "Пекарня");
+            int breadId = manager.addNewTask(bread).join();
+            bread.setStatus(TaskStatus.DONE);
+            manager.updateTask(bread).join();
+
+            assertEquals(List.of(breadId), manager.getByStatus(TaskType.TASK, TaskStatus.DONE).join().stream()
+                    .map(Task::getId).toList());
+            assertEquals(List.of(milkId), manager.searchAll("купить молоко", 10).join().stream()
+                    .map(Task::getId).toList());
+            assertEquals(2, manager.searchAny("молоко хлеб", 10).join().size());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package taskmanager.test;
+
+import taskmanager.managers.BlockIdAllocator;
+import taskmanager.managers.FileBackedTaskManager;
+import taskmanager.managers.PersistenceMode;
+import taskmanager.managers.PersistenceOptions;
+import taskmanager.tasks.Task;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockIdAllocatorTest {
+    private static final int THREADS = 4;
+    private static final int IDS_PER_THREAD = 10_000;
+
+    @Test
+    public void testIdsAreUniqueAcrossAllocatorsAndRestarts(@TempDir Path dir) throws InterruptedException {
+        Path idFile = dir.resolve("ids");
+        BlockIdAllocator first = new BlockIdAllocator(idFile, 100);
+        BlockIdAllocator second = new BlockIdAllocator(idFile, 100);
+        Set<Integer> ids = Collections.synchronizedSet(new HashSet<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            BlockIdAllocator allocator = i % 2 == 0 ? first : second;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < IDS_PER_THREAD; j++) {
+                    assertTrue(ids.add(allocator.nextId()));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+        assertTrue(first.getLeaseCount() + second.getLeaseCount() <= THREADS * IDS_PER_THREAD / 100 + 2);
+
+        // новый процесс начинает выше всего, что могли выдать прежние
+        int max = Collections.max(ids);
+        assertTrue(new BlockIdAllocator(idFile, 100).nextId() > max);
+    }
+
+    @Test
+    public void testLoadedIdsAreNotReissued(@TempDir File dir) {
+        File file = new File(dir, "tasks.csv");
+        FileBackedTaskManager legacy = new FileBackedTaskManager(file, PersistenceMode.SNAPSHOT);
+        for (int i = 0; i < 3; i++) {
+            legacy.addNewTask(new Task("Task " + i, "Description"));
+        }
+
+        PersistenceOptions options = PersistenceOptions.synchronous(PersistenceMode.SNAPSHOT)
+                .withIdAllocator(new BlockIdAllocator(dir.toPath().resolve("ids")));
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, options);
+        int id = loaded.addNewTask(new Task("New", "Description"));
+        assertTrue(id > 3, "Ids written before the shared counter existed must be skipped.");
+        assertEquals(4, loaded.getTasks().size());
+
+        FileBackedTaskManager restarted = FileBackedTaskManager.loadFromFile(file,
+                options.withIdAllocator(new BlockIdAllocator(dir.toPath().resolve("ids"))));
+        assertTrue(restarted.addNewTask(new Task("After restart", "Description")) > id);
+    }
+}
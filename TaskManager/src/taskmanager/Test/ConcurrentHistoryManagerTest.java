@@ -0,0 +1,72 @@
+package taskmanager.test;
+
+import taskmanager.managers.ConcurrentHistoryManager;
+import taskmanager.managers.HistoryManager;
+import taskmanager.managers.Managers;
+import taskmanager.tasks.Task;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentHistoryManagerTest {
+
+    @Test
+    public void testKeepsLastUniqueViewsInOrder() {
+        HistoryManager history = Managers.getConcurrentHistory(3);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Task task = new Task(i, "Task " + i, "Description");
+            tasks.add(task);
+            history.add(task);
+        }
+        history.add(tasks.get(2));
+
+        assertEquals(List.of(tasks.get(3), tasks.get(4), tasks.get(2)), history.getHistory());
+
+        history.remove(tasks.get(4).getId());
+        assertEquals(List.of(tasks.get(3), tasks.get(2)), history.getHistory());
+    }
+
+    @Test
+    public void testConcurrentAddsRespectCapacity() throws Exception {
+        int capacity = 50;
+        HistoryManager history = new ConcurrentHistoryManager(capacity);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t * 1000;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    history.add(new Task(offset + i % 1000, "Task", "Description"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<Task> result = history.getHistory();
+        assertEquals(capacity, result.size(), "History should be full but not exceed its capacity.");
+        HashSet<Integer> ids = new HashSet<>();
+        result.forEach(task -> assertTrue(ids.add(task.getId()), "History should not contain duplicates."));
+    }
+
+    @Test
+    public void testDefaultHistoryCapacityIsConfigurable() {
+        HistoryManager history = Managers.getDefaultHistory(2);
+        for (int i = 1; i <= 4; i++) {
+            history.add(new Task(i, "Task " + i, "Description"));
+        }
+        assertEquals(2, history.getHistory().size());
+    }
+}
@@ -0,0 +1,185 @@
+package taskmanager.test;
+
+import taskmanager.managers.ConcurrentTaskManager;
+import taskmanager.managers.Managers;
+import taskmanager.managers.TaskChanges;
+import taskmanager.managers.TaskManager;
+import taskmanager.tasks.Epic;
+import taskmanager.tasks.Subtask;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+import taskmanager.tasks.TaskType;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTest {
+    private static final int THREADS = 8;
+    private static final int EPICS = 16;
+    private static final int OPERATIONS = 20_000;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    @Test
+    public void testManagersGetConcurrent() {
+        assertTrue(Managers.getConcurrent() instanceof ConcurrentTaskManager);
+    }
+
+    @Test
+    public void testChangesSinceFollowsConcurrentWriters() throws Exception {
+        TaskManager manager = new ConcurrentTaskManager();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<Task> own = new ArrayList<>();
+                for (int i = 0; i < OPERATIONS / 4; i++) {
+                    int action = random.nextInt(10);
+                    if (action < 4 || own.isEmpty()) {
+                        Task task = new Task("Task", "v0");
+                        manager.addNewTask(task);
+                        own.add(task);
+                    } else if (action < 8) {
+                        Task task = own.get(random.nextInt(own.size()));
+                        task.setDescription("v" + i);
+                        manager.updateTask(task);
+                    } else {
+                        manager.removeTask(own.remove(random.nextInt(own.size())).getId());
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // клиент синхронизируется, пока идут записи, и после них должен совпасть с менеджером
+        Map<Integer, String> client = new HashMap<>();
+        long version = 0;
+        start.countDown();
+        boolean writing = true;
+        while (writing) {
+            writing = futures.stream().anyMatch(future -> !future.isDone());
+            TaskChanges changes = manager.getChangesSince(version);
+            if (changes.isFull()) {
+                client.clear();
+            }
+            changes.getChanged().forEach(task -> client.put(task.getId(), task.getDescription()));
+            for (int id : changes.getRemovedIds()) {
+                client.remove(id);
+            }
+            version = changes.getVersion();
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Map<Integer, String> expected = new HashMap<>();
+        manager.getTasks().forEach(task -> expected.put(task.getId(), task.getDescription()));
+        assertEquals(expected, client);
+    }
+
+    @Test
+    public void testConcurrentMutationsKeepEpicStatusConsistent() throws Exception {
+        TaskManager manager = new ConcurrentTaskManager();
+        List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < EPICS; i++) {
+            epicIds.add(manager.addNewEpic(new Epic("Epic " + i, "Description")));
+        }
+        Set<Integer> issuedIds = ConcurrentHashMap.newKeySet();
+        epicIds.forEach(issuedIds::add);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<Subtask> own = new ArrayList<>();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    int epicId = epicIds.get(random.nextInt(EPICS));
+                    int action = random.nextInt(10);
+                    if (action < 4 || own.isEmpty()) {
+                        Subtask subtask = new Subtask("Subtask", "Description", epicId);
+                        subtask.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+                        assertTrue(issuedIds.add(manager.addNewSubtask(subtask)), "Ids must be unique.");
+                        own.add(subtask);
+                    } else if (action < 7) {
+                        Subtask subtask = own.get(random.nextInt(own.size()));
+                        subtask.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+                        manager.updateSubtask(subtask);
+                    } else if (action < 9) {
+                        Subtask current = own.get(random.nextInt(own.size()));
+                        Subtask moved = new Subtask(current.getName(), current.getDescription(), epicId);
+                        moved.setId(current.getId());
+                        moved.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+                        manager.updateSubtask(moved);
+                        own.set(own.indexOf(current), moved);
+                    } else {
+                        Subtask removed = own.remove(random.nextInt(own.size()));
+                        manager.removeSubtask(removed.getId());
+                    }
+                    if (i % 1000 == 0) {
+                        assertTrue(issuedIds.add(manager.addNewTask(new Task("Task", "Description"))));
+                        manager.getEpic(epicId);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Set<Integer> linked = new HashSet<>();
+        for (int epicId : epicIds) {
+            Epic epic = (Epic) manager.getEpic(epicId);
+            List<Subtask> subtasks = manager.getSubtasksByEpic(epicId);
+            for (Subtask subtask : subtasks) {
+                assertEquals(epicId, subtask.getEpicId(), "Subtask must be linked to its own epic.");
+                assertTrue(linked.add(subtask.getId()), "Subtask must be linked to exactly one epic.");
+            }
+            for (TaskStatus status : STATUSES) {
+                long expected = subtasks.stream().filter(subtask -> subtask.getStatus() == status).count();
+                assertEquals(expected, epic.getSubtaskCount(status), "Status counters must match subtasks.");
+            }
+            assertEquals(expectedStatus(subtasks), epic.getStatus(), "Epic status must match its subtasks.");
+        }
+        assertEquals(manager.getSubtasks().size(), linked.size(), "Every stored subtask must belong to an epic.");
+        // индекс статусов обновлялся из всех полос параллельно
+        for (TaskStatus status : STATUSES) {
+            long expected = manager.getSubtasks().stream().filter(subtask -> subtask.getStatus() == status).count();
+            assertEquals(expected, manager.countByStatus(TaskType.SUBTASK, status), "Status index must match subtasks.");
+            assertEquals(expected, manager.getByStatus(TaskType.SUBTASK, status).size());
+        }
+    }
+
+    private static TaskStatus expectedStatus(List<Subtask> subtasks) {
+        if (subtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.NEW)) {
+            return TaskStatus.NEW;
+        }
+        if (subtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.DONE)) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+}
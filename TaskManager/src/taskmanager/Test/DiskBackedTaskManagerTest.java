@@ -0,0 +1,131 @@
+package taskmanager.test;
+
+import taskmanager.managers.DiskBackedTaskManager;
+import taskmanager.managers.InMemoryHistoryManager;
+import taskmanager.managers.TaskManager;
+import taskmanager.tasks.Epic;
+import taskmanager.tasks.Subtask;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+import taskmanager.tasks.TaskType;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiskBackedTaskManagerTest {
+
+    @Test
+    public void testReopenRestoresIndexAndEpicStatus(@TempDir File dir) {
+        File file = new File(dir, "tasks.db");
+        DiskBackedTaskManager manager = new DiskBackedTaskManager(file);
+        Task task = new Task("Task", "Description");
+        manager.addNewTask(task);
+        Epic epic = new Epic("Epic", "Epic description");
+        manager.addNewEpic(epic);
+        Subtask first = new Subtask("First", "Описание", epic.getId());
+        manager.addNewSubtask(first);
+        Subtask second = new Subtask("Second", null, epic.getId());
+        manager.addNewSubtask(second);
+        first.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(first);
+        manager.removeSubtask(second.getId());
+        manager.close();
+
+        manager = new DiskBackedTaskManager(file);
+        assertEquals("Task", manager.getTask(task.getId()).getName());
+        assertEquals(TaskStatus.DONE, manager.getEpic(epic.getId()).getStatus());
+        assertEquals("Описание", manager.getSubtask(first.getId()).getDescription());
+        assertNull(manager.getSubtask(second.getId()));
+        assertEquals(1, manager.getSubtasksByEpic(epic.getId()).size());
+        assertEquals(1, manager.countByStatus(TaskType.EPIC, TaskStatus.DONE));
+
+        // новые id продолжают нумерацию после открытия
+        assertEquals(second.getId() + 1, manager.addNewTask(new Task("Next", "Description")));
+        manager.close();
+    }
+
+    @Test
+    public void testCacheIsBounded(@TempDir File dir) {
+        DiskBackedTaskManager manager = new DiskBackedTaskManager(new File(dir, "tasks.db"), 10,
+                new InMemoryHistoryManager());
+        for (int i = 0; i < 100; i++) {
+            manager.addNewTask(new Task("Task " + i, "Description"));
+        }
+        for (int id = 1; id <= 100; id++) {
+            assertEquals("Task " + (id - 1), manager.getTask(id).getName());
+        }
+        assertEquals(10, manager.getCachedCount());
+        assertEquals(100, manager.view(TaskType.TASK).size());
+        manager.close();
+    }
+
+    @Test
+    public void testFailedBatchIsRolledBack(@TempDir File dir) {
+        File file = new File(dir, "tasks.db");
+        DiskBackedTaskManager manager = new DiskBackedTaskManager(file);
+        Epic epic = new Epic("Epic", "Epic description");
+        manager.addNewEpic(epic);
+        long size = manager.getDataFileSize();
+
+        assertThrows(IllegalStateException.class, () -> manager.batch(m -> {
+            Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+            subtask.setStatus(TaskStatus.IN_PROGRESS);
+            m.addNewSubtask(subtask);
+            m.removeAllTasks();
+            throw new IllegalStateException("fail");
+        }));
+
+        assertEquals(size, manager.getDataFileSize());
+        assertEquals(TaskStatus.NEW, manager.getEpic(epic.getId()).getStatus());
+        assertTrue(manager.getSubtasks().isEmpty());
+        assertEquals(epic.getId() + 1, manager.addNewTask(new Task("Task", "Description")));
+        manager.close();
+    }
+
+    @Test
+    public void testTornTailAndCompaction(@TempDir File dir) throws IOException {
+        File file = new File(dir, "tasks.db");
+        DiskBackedTaskManager manager = new DiskBackedTaskManager(file);
+        Task task = new Task("Task", "Description");
+        manager.addNewTask(task);
+        for (int i = 0; i < 10; i++) {
+            task.setDescription("Version " + i);
+            manager.updateTask(task);
+        }
+        manager.close();
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 3); // недописанная последняя запись
+        }
+
+        DiskBackedTaskManager reopened = new DiskBackedTaskManager(file);
+        assertEquals("Version 8", reopened.getTask(task.getId()).getDescription());
+        long before = reopened.getDataFileSize();
+        reopened.compact();
+        assertTrue(reopened.getDataFileSize() < before);
+        assertEquals("Version 8", reopened.getTask(task.getId()).getDescription());
+        reopened.close();
+
+        TaskManager again = new DiskBackedTaskManager(file);
+        assertEquals("Version 8", again.getTask(task.getId()).getDescription());
+    }
+
+    @Test
+    public void testCompactionDoesNotReuseIds(@TempDir File dir) {
+        File file = new File(dir, "tasks.db");
+        DiskBackedTaskManager manager = new DiskBackedTaskManager(file);
+        manager.addNewTask(new Task("Kept", "Description"));
+        int removedId = manager.addNewTask(new Task("Removed", "Description"));
+        manager.removeTask(removedId);
+        manager.compact();
+        manager.close();
+
+        DiskBackedTaskManager reopened = new DiskBackedTaskManager(file);
+        assertEquals(removedId + 1, reopened.addNewTask(new Task("Next", "Description")),
+                "Ids of compacted-away tasks should not be handed out again.");
+        reopened.close();
+    }
+}
@@ -1,13 +1,23 @@
 package taskmanager.test;
 
 import taskmanager.managers.FileBackedTaskManager;
+import taskmanager.managers.Durability;
+import taskmanager.managers.PersistenceMode;
+import taskmanager.managers.PersistenceOptions;
+import taskmanager.managers.SnapshotFormat;
+import taskmanager.managers.TaskChanges;
 import taskmanager.tasks.Task;
 import taskmanager.tasks.Epic;
 import taskmanager.tasks.Subtask;
 import taskmanager.tasks.TaskStatus;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class FileBackedTaskManagerTest {
@@ -31,4 +41,286 @@ public class FileBackedTaskManagerTest {
         assertNotNull(taskManager.getEpic(epic.getId()), "Epic should be loaded.");
         assertNotNull(taskManager.getSubtask(subtask.getId()), "Subtask should be loaded.");
     }
+
+    @Test
+    public void testJournalReplay(@TempDir File dir) {
+        File journaled = new File(dir, "tasks.csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(journaled, PersistenceMode.JOURNAL);
+
+        Task task = new Task("Task", "Description");
+        manager.addNewTask(task);
+        Epic epic = new Epic("Epic", "Epic description");
+        manager.addNewEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Subtask description", epic.getId());
+        manager.addNewSubtask(subtask);
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        Task removed = new Task("Removed", "Description");
+        manager.addNewTask(removed);
+        manager.removeTask(removed.getId());
+        manager.close();
+
+        assertFalse(journaled.exists(), "Journal mode should not rewrite the snapshot on every change.");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(journaled, PersistenceMode.JOURNAL);
+        assertEquals("Task", loaded.getTask(task.getId()).getName());
+        assertEquals(TaskStatus.DONE, loaded.getSubtask(subtask.getId()).getStatus());
+        assertEquals(TaskStatus.DONE, loaded.getEpic(epic.getId()).getStatus());
+        assertNull(loaded.getTask(removed.getId()), "Removed task should stay removed after replay.");
+        // младшие 40 бит версии - счётчик изменений, старшие - эпоха экземпляра
+        assertEquals(0, loaded.getChangesSince(0).getVersion() & 0xFF_FFFF_FFFFL,
+                "Replay should not record versions or tombstones.");
+
+        loaded.checkpoint();
+        Task next = new Task("Next", "Description");
+        loaded.addNewTask(next);
+        loaded.close();
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(journaled, PersistenceMode.JOURNAL);
+        assertEquals(4, reloaded.getTasks().size() + reloaded.getEpics().size() + reloaded.getSubtasks().size());
+        assertNotNull(reloaded.getTask(next.getId()), "Records after checkpoint should be replayed.");
+        assertEquals(epic.getId(), reloaded.getSubtasksByEpic(epic.getId()).get(0).getEpicId());
+    }
+
+    @Test
+    public void testBackgroundFlushBarrier(@TempDir File dir) {
+        for (PersistenceMode mode : PersistenceMode.values()) {
+            for (Durability durability : Durability.values()) {
+                File target = new File(dir, mode + "-" + durability + ".csv");
+                PersistenceOptions options = PersistenceOptions.background(mode, durability, 10);
+                FileBackedTaskManager manager = new FileBackedTaskManager(target, options);
+
+                Epic epic = new Epic("Epic", "Epic description");
+                manager.addNewEpic(epic);
+                for (int i = 0; i < 200; i++) {
+                    Subtask subtask = new Subtask("Subtask " + i, "Description", epic.getId());
+                    manager.addNewSubtask(subtask);
+                    subtask.setStatus(TaskStatus.DONE);
+                    manager.updateSubtask(subtask);
+                }
+                manager.flush();
+
+                FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(target, mode);
+                assertEquals(200, loaded.getSubtasks().size(), mode + "/" + durability);
+                assertEquals(TaskStatus.DONE, loaded.getEpic(epic.getId()).getStatus(), mode + "/" + durability);
+                manager.close();
+                loaded.close();
+            }
+        }
+    }
+
+    @Test
+    public void testLoadKeepsPersistedIds(@TempDir File dir) throws IOException {
+        File source = new File(dir, "tasks.csv");
+        String content = "id,type,name,status,description,epic\n"
+                + "9,SUBTASK,Subtask,DONE,Subtask description,7\n"
+                + "5,TASK,Task,IN_PROGRESS,Task description,\n"
+                + "7,EPIC,Epic,NEW,Epic description,\n";
+        Files.writeString(source.toPath(), content);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(source);
+
+        assertEquals(TaskStatus.IN_PROGRESS, loaded.getTask(5).getStatus());
+        assertEquals(7, loaded.getSubtasksByEpic(7).get(0).getEpicId());
+        assertEquals(TaskStatus.DONE, loaded.getEpic(7).getStatus(), "Epic status should be rebuilt from subtasks.");
+        assertEquals(content, Files.readString(source.toPath()), "Loading should not rewrite the file.");
+        assertEquals(10, loaded.addNewTask(new Task("Next", "Description")), "Id counter should continue after max id.");
+    }
+
+    @Test
+    public void testTornJournalTailIsCutBeforeNextWrite(@TempDir File dir) throws IOException {
+        File source = new File(dir, "tasks.csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(source, PersistenceMode.JOURNAL);
+        manager.addNewTask(new Task("First", "Description"));
+        manager.addNewTask(new Task("Second", "Description"));
+        manager.close();
+        // сбой посреди записи: последняя строка без перевода строки
+        File journal = new File(dir, "tasks.csv.journal");
+        Files.writeString(journal.toPath(), "PUT,3,TA", StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(source, PersistenceMode.JOURNAL);
+        assertEquals(2, loaded.getTasks().size());
+        int nextId = loaded.addNewTask(new Task("Third", "Description"));
+        loaded.close();
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(source, PersistenceMode.JOURNAL);
+        assertEquals(3, reloaded.getTasks().size());
+        assertEquals("Third", reloaded.getTask(nextId).getName());
+        reloaded.close();
+    }
+
+    @Test
+    public void testUnfinishedBatchDoesNotSwallowLaterWrites(@TempDir File dir) throws IOException {
+        File source = new File(dir, "tasks.csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(source, PersistenceMode.JOURNAL);
+        manager.addNewTask(new Task("First", "Description"));
+        manager.close();
+        // сбой посреди пакета: BEGIN без COMMIT
+        File journal = new File(dir, "tasks.csv.journal");
+        Files.writeString(journal.toPath(), "BEGIN\nPUT,2,TASK,Lost,NEW,Description,\n", StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(source, PersistenceMode.JOURNAL);
+        assertEquals(1, loaded.getTasks().size());
+        int nextId = loaded.addNewTask(new Task("Second", "Description"));
+        loaded.flush();
+        loaded.close();
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(source, PersistenceMode.JOURNAL);
+        assertEquals(2, reloaded.getTasks().size());
+        assertEquals("Second", reloaded.getTask(nextId).getName(), "Acknowledged writes should survive a reload.");
+        reloaded.close();
+    }
+
+    @Test
+    public void testVersionFromBeforeRestartForcesFullSync(@TempDir File dir) {
+        File source = new File(dir, "tasks.csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(source, PersistenceMode.JOURNAL);
+        for (int i = 0; i < 3; i++) {
+            manager.addNewTask(new Task("Before " + i, "Description"));
+        }
+        long version = manager.getChangesSince(0).getVersion();
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(source, PersistenceMode.JOURNAL);
+        for (int i = 0; i < 5; i++) {
+            loaded.addNewTask(new Task("After " + i, "Description"));
+        }
+        TaskChanges changes = loaded.getChangesSince(version);
+        assertTrue(changes.isFull(), "A version issued before the restart should force a full sync.");
+        assertEquals(8, changes.getChanged().size());
+        loaded.close();
+    }
+
+    @Test
+    public void testBinarySnapshotRoundTrip(@TempDir File dir) {
+        File binary = new File(dir, "tasks.bin");
+        PersistenceOptions options = PersistenceOptions.synchronous(PersistenceMode.SNAPSHOT)
+                .withFormat(SnapshotFormat.BINARY);
+        FileBackedTaskManager manager = new FileBackedTaskManager(binary, options);
+
+        Task task = new Task("Name, with comma", "Описание\nв две строки");
+        manager.addNewTask(task);
+        Epic epic = new Epic("Epic", null);
+        manager.addNewEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Subtask description", epic.getId());
+        subtask.setStatus(TaskStatus.IN_PROGRESS);
+        manager.addNewSubtask(subtask);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(binary, options);
+        assertEquals("Name, with comma", loaded.getTask(task.getId()).getName());
+        assertEquals("Описание\nв две строки", loaded.getTask(task.getId()).getDescription());
+        assertNull(loaded.getEpic(epic.getId()).getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, loaded.getEpic(epic.getId()).getStatus());
+        assertEquals(epic.getId(), loaded.getSubtasksByEpic(epic.getId()).get(0).getEpicId());
+    }
+
+    @Test
+    public void testConcurrentBatchesRollBackWhileWaitingForDisk(@TempDir File dir) throws Exception {
+        File target = new File(dir, "tasks.csv");
+        PersistenceOptions options = PersistenceOptions.background(PersistenceMode.JOURNAL, Durability.FSYNC_EACH);
+        FileBackedTaskManager manager = new FileBackedTaskManager(target, options);
+        int rounds = 300;
+
+        // Пока один поток ждёт fsync своего пакета, другой открывает свой и падает в нём.
+        Thread committing = new Thread(() -> {
+            for (int i = 0; i < rounds; i++) {
+                manager.batch(tx -> tx.addNewTask(new Task("Committed", "Description")));
+            }
+        });
+        committing.start();
+        for (int i = 0; i < rounds; i++) {
+            assertThrows(IllegalStateException.class, () -> manager.batch(tx -> {
+                tx.addNewTask(new Task("Rolled back", "Description"));
+                throw new IllegalStateException("Rollback");
+            }));
+        }
+        committing.join();
+        manager.close();
+
+        assertEquals(rounds, manager.getTasks().size());
+        assertTrue(manager.getTasks().stream().allMatch(task -> task.getName().equals("Committed")));
+        assertEquals(rounds, FileBackedTaskManager.loadFromFile(target, PersistenceMode.JOURNAL).getTasks().size());
+    }
+
+    @Test
+    public void testTextFieldsRoundTripInCsvAndJournal(@TempDir File dir) {
+        for (PersistenceMode mode : PersistenceMode.values()) {
+            File target = new File(dir, mode + ".csv");
+            FileBackedTaskManager manager = new FileBackedTaskManager(target, mode);
+            Task task = new Task("Buy milk, eggs", "Строка\nвторая, с \\ и \r");
+            manager.addNewTask(task);
+            Epic epic = new Epic("", null);
+            manager.addNewEpic(epic);
+            Subtask subtask = new Subtask("Subtask,", "\\c", epic.getId());
+            manager.addNewSubtask(subtask);
+            manager.close();
+
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(target, mode);
+            assertEquals("Buy milk, eggs", loaded.getTask(task.getId()).getName(), mode.name());
+            assertEquals("Строка\nвторая, с \\ и \r", loaded.getTask(task.getId()).getDescription());
+            assertEquals("", loaded.getEpic(epic.getId()).getName());
+            assertNull(loaded.getEpic(epic.getId()).getDescription());
+            assertEquals("Subtask,", loaded.getSubtask(subtask.getId()).getName());
+            assertEquals("\\c", loaded.getSubtask(subtask.getId()).getDescription());
+            loaded.close();
+        }
+    }
+
+    @Test
+    public void testBatchIsPersistedAsOneJournalGroup(@TempDir File dir) throws IOException {
+        File journaled = new File(dir, "tasks.csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(journaled, PersistenceMode.JOURNAL);
+        Epic epic = new Epic("Epic", "Epic description");
+        manager.addNewEpic(epic);
+        manager.batch(tx -> {
+            for (int i = 0; i < 50; i++) {
+                tx.addNewSubtask(new Subtask("Subtask " + i, "Description", epic.getId()));
+            }
+        });
+        manager.close();
+
+        File journal = new File(dir, "tasks.csv.journal");
+        List<String> records = Files.readAllLines(journal.toPath());
+        assertEquals(53, records.size(), "Epic, BEGIN, 50 subtasks and COMMIT expected.");
+        assertEquals(50, FileBackedTaskManager.loadFromFile(journaled, PersistenceMode.JOURNAL).getSubtasks().size());
+
+        // Группа без COMMIT (обрыв записи) не должна примениться.
+        Files.writeString(journal.toPath(), String.join("\n", records.subList(0, 40)) + "\n");
+        assertEquals(0, FileBackedTaskManager.loadFromFile(journaled, PersistenceMode.JOURNAL).getSubtasks().size());
+    }
+
+    @Test
+    public void testJournalIsCompactedInBackground(@TempDir File dir) throws IOException {
+        File journaled = new File(dir, "tasks.csv");
+        PersistenceOptions options = PersistenceOptions.synchronous(PersistenceMode.JOURNAL)
+                .withFormat(SnapshotFormat.BINARY)
+                .withCompaction(0, 100);
+        FileBackedTaskManager manager = new FileBackedTaskManager(journaled, options);
+        Epic epic = new Epic("Epic", "Epic description");
+        manager.addNewEpic(epic);
+        for (int i = 0; i < 1000; i++) {
+            Subtask subtask = new Subtask("Subtask " + i, "Description", epic.getId());
+            manager.addNewSubtask(subtask);
+            subtask.setStatus(TaskStatus.DONE);
+            manager.updateSubtask(subtask);
+        }
+        manager.awaitCompaction();
+        manager.close();
+
+        assertTrue(manager.getCompactionCount() > 0, "Journal should have been compacted.");
+        // 1 + 2000 записей; часть из них уже в снимке
+        assertTrue(Files.readAllLines(new File(dir, "tasks.csv.journal").toPath()).size() < 2001);
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(journaled, options);
+        assertEquals(1000, loaded.getSubtasks().size());
+        assertEquals(TaskStatus.DONE, loaded.getEpic(epic.getId()).getStatus());
+        loaded.close();
+
+        // Сбой после замены снимка, но до удаления segment: повторное проигрывание ничего не меняет.
+        Files.copy(new File(dir, "tasks.csv.journal").toPath(), new File(dir, "tasks.csv.journal.1").toPath());
+        FileBackedTaskManager recovered = FileBackedTaskManager.loadFromFile(journaled, options);
+        recovered.awaitCompaction();
+        assertEquals(1000, recovered.getSubtasks().size());
+        assertFalse(new File(dir, "tasks.csv.journal.1").exists());
+        recovered.close();
+    }
 }
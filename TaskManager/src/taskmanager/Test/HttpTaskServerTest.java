@@ -0,0 +1,130 @@
+package taskmanager.test;
+
+import taskmanager.http.HttpTaskServer;
+import taskmanager.managers.ConcurrentTaskManager;
+import taskmanager.managers.TaskManager;
+import taskmanager.tasks.Epic;
+import taskmanager.tasks.Subtask;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerTest {
+    private final TaskManager manager = new ConcurrentTaskManager();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private HttpTaskServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new HttpTaskServer(manager, 0);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testCreateGetUpdateDelete() throws Exception {
+        HttpResponse<String> created = post("/tasks", "{\"name\":\"Task \\\"1\\\"\",\"description\":\"Строка\\nвторая\"}");
+        assertEquals(201, created.statusCode());
+        int id = manager.getTasks().get(0).getId();
+        assertEquals("{\"id\":" + id + "}", created.body());
+
+        HttpResponse<String> task = get("/tasks/" + id);
+        assertEquals(200, task.statusCode());
+        assertEquals("{\"id\":" + id + ",\"type\":\"TASK\",\"name\":\"Task \\\"1\\\"\","
+                + "\"description\":\"Строка\\nвторая\",\"status\":\"NEW\"}", task.body());
+
+        assertEquals(200, post("/tasks", "{\"id\":" + id + ",\"name\":\"Task\",\"status\":\"DONE\"}").statusCode());
+        assertEquals(TaskStatus.DONE, manager.getTask(id).getStatus());
+
+        assertEquals(204, send("DELETE", "/tasks/" + id, null).statusCode());
+        assertEquals(404, get("/tasks/" + id).statusCode());
+        assertEquals(404, get("/unknown").statusCode());
+        assertEquals(400, post("/tasks", "{\"name\":").statusCode());
+        assertEquals(405, send("PUT", "/tasks", "{}").statusCode());
+    }
+
+    @Test
+    public void testPostWithUnknownIdIsNotFound() throws Exception {
+        assertEquals(404, post("/epics", "{\"id\":2,\"name\":\"Epic\"}").statusCode());
+        assertEquals(404, post("/tasks", "{\"id\":5,\"name\":\"Task\"}").statusCode());
+        assertEquals(404, post("/subtasks", "{\"id\":7,\"name\":\"Subtask\",\"epicId\":1}").statusCode());
+        assertTrue(manager.getEpics().isEmpty(), "Unknown ids should not be inserted.");
+
+        // пакет с неизвестным id откатывается целиком
+        assertEquals(404, post("/tasks/batch", "[{\"name\":\"Ok\"},{\"id\":9,\"name\":\"Missing\"}]").statusCode());
+        assertTrue(manager.getTasks().isEmpty());
+
+        assertEquals(201, post("/tasks", "{\"name\":\"First\"}").statusCode());
+        assertEquals(201, post("/tasks", "{\"name\":\"Second\"}").statusCode());
+        assertEquals(2, manager.getTasks().stream().map(Task::getId).distinct().count());
+    }
+
+    @Test
+    public void testListsAndBatch() throws Exception {
+        Epic epic = new Epic("Epic", "Description");
+        manager.addNewEpic(epic);
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < 3000; i++) {
+            batch.append(i == 0 ? "" : ",")
+                    .append("{\"name\":\"Subtask ").append(i).append("\",\"epicId\":").append(epic.getId()).append('}');
+        }
+        HttpResponse<String> ids = post("/subtasks/batch", batch.append(']').toString());
+        assertEquals(200, ids.statusCode());
+        assertEquals(3000, manager.getSubtasks().size());
+
+        // больше одной страницы потокового ответа
+        String all = get("/subtasks").body();
+        assertEquals(3000, all.split("\"type\":\"SUBTASK\"").length - 1);
+        assertEquals(3000, get("/epics/" + epic.getId() + "/subtasks").body().split("\"epicId\"").length - 1);
+
+        HttpResponse<String> page = get("/subtasks?limit=2");
+        assertTrue(page.body().endsWith("\"nextCursor\":" + (epic.getId() + 2) + ",\"hasMore\":true}"), page.body());
+
+        // ошибка в одной задаче откатывает весь пакет
+        HttpResponse<String> failed = post("/subtasks/batch",
+                "[{\"name\":\"Ok\",\"epicId\":" + epic.getId() + "},{\"name\":\"Bad\",\"epicId\":999}]");
+        assertEquals(400, failed.statusCode());
+        assertEquals(3000, manager.getSubtasks().size());
+
+        manager.getTask(manager.addNewTask(new Task("Viewed", "Description")));
+        assertTrue(get("/history").body().contains("\"name\":\"Viewed\""));
+        Subtask first = (Subtask) manager.getSubtasks().get(0);
+        assertEquals(epic.getId(), first.getEpicId());
+
+        String changes = get("/changes?since=0").body();
+        assertTrue(changes.startsWith("{\"version\":") && changes.contains("\"full\":true"), changes);
+        assertEquals(400, get("/changes?since=x").statusCode());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send("GET", path, null);
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return send("POST", path, body);
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
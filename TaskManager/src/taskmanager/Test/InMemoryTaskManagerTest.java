@@ -1,16 +1,20 @@
 package taskmanager.test;
 
 import taskmanager.managers.InMemoryTaskManager;
+import taskmanager.managers.TaskChanges;
 import taskmanager.managers.TaskManager;
+import taskmanager.managers.TaskPage;
 import taskmanager.tasks.Task;
 import taskmanager.tasks.Epic;
 import taskmanager.tasks.Subtask;
 import taskmanager.tasks.TaskStatus;
+import taskmanager.tasks.TaskType;
 import taskmanager.managers.HistoryManager;
 import taskmanager.managers.Managers;
 
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.Collection;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 
@@ -200,6 +204,44 @@ public class InMemoryTaskManagerTest {
         assertTrue(previousVersionRecorded, "Previous version of the task should be saved in history.");
     }
 
+    @Test
+    public void testManagerStoresCopiesOnAddAndUpdate() {
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = manager.addNewEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", epicId);
+        int subtaskId = manager.addNewSubtask(subtask);
+
+        epic.setDescription("Changed");
+        subtask.setStatus(TaskStatus.DONE);
+        assertEquals("Description", manager.getEpic(epicId).getDescription(), "Caller changes should not leak into the manager.");
+        assertEquals(TaskStatus.NEW, manager.getSubtask(subtaskId).getStatus());
+
+        manager.updateSubtask(subtask);
+        manager.updateEpic(new Epic(epicId, "Renamed", "Description"));
+        assertEquals(List.of(subtaskId), manager.getSubtasksByEpic(epicId).stream().map(Task::getId).toList(),
+                "Subtasks should move to the updated epic.");
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus());
+
+        // epicId меняют прямо в хранимом объекте: подзадача должна уйти из прежнего эпика
+        int otherId = manager.addNewEpic(new Epic("Other", "Description"));
+        Subtask stored = (Subtask) manager.getSubtask(subtaskId);
+        stored.setEpicId(otherId);
+        manager.updateSubtask(stored);
+        assertTrue(manager.getSubtasksByEpic(epicId).isEmpty());
+        assertEquals(TaskStatus.NEW, manager.getEpic(epicId).getStatus());
+        assertEquals(TaskStatus.DONE, manager.getEpic(otherId).getStatus());
+    }
+
+    @Test
+    public void testContainsDoesNotRecordHistory() {
+        int epicId = manager.addNewEpic(new Epic("Epic", "Description"));
+
+        assertTrue(manager.contains(TaskType.EPIC, epicId));
+        assertFalse(manager.contains(TaskType.TASK, epicId));
+        assertFalse(manager.contains(TaskType.EPIC, epicId + 1));
+        assertTrue(manager.getHistory().isEmpty(), "contains should not add the task to history.");
+    }
+
     @Test
     public void testManagersInitialization() {
         TaskManager taskManager = Managers.getDefault();
@@ -329,4 +371,202 @@ public class InMemoryTaskManagerTest {
         assertEquals(epic, manager.getEpic(epicId), "Epic should be retrieved correctly.");
         assertEquals(subtask, manager.getSubtask(subtaskId), "Subtask should be retrieved correctly.");
     }
+
+    @Test
+    public void testBatchRollsBackOnFailure() {
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = manager.addNewEpic(epic);
+        Subtask existing = new Subtask("Existing", "Description", epicId);
+        existing.setStatus(TaskStatus.DONE);
+        manager.addNewSubtask(existing);
+        Task task = new Task("Task", "Description");
+        int taskId = manager.addNewTask(task);
+
+        assertThrows(IllegalArgumentException.class, () -> manager.batch(tx -> {
+            tx.addNewSubtask(new Subtask("New", "Description", epicId));
+            tx.removeTask(taskId);
+            tx.removeSubtask(existing.getId());
+            tx.addNewSubtask(new Subtask("Orphan", "Description", -1));
+        }));
+
+        assertEquals(1, manager.getSubtasksByEpic(epicId).size(), "Batch changes should be rolled back.");
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus());
+        assertNotNull(manager.getTask(taskId), "Removed task should be restored.");
+        assertEquals(taskId + 1, manager.addNewTask(new Task("Next", "Description")), "Ids should be reused after rollback.");
+    }
+
+    @Test
+    public void testBatchUpdatesEpicStatusOnCommit() {
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = manager.addNewEpic(epic);
+
+        manager.batch(tx -> {
+            for (int i = 0; i < 100; i++) {
+                Subtask subtask = new Subtask("Subtask " + i, "Description", epicId);
+                subtask.setStatus(TaskStatus.DONE);
+                tx.addNewSubtask(subtask);
+            }
+        });
+
+        assertEquals(100, manager.getSubtasksByEpic(epicId).size());
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus());
+    }
+
+    @Test
+    public void testEpicStatusFollowsSubtaskMoves() {
+        int firstId = manager.addNewEpic(new Epic("First", "Description"));
+        int secondId = manager.addNewEpic(new Epic("Second", "Description"));
+        Subtask done = new Subtask("Done", "Description", firstId);
+        done.setStatus(TaskStatus.DONE);
+        manager.addNewSubtask(done);
+        Subtask fresh = new Subtask("New", "Description", firstId);
+        manager.addNewSubtask(fresh);
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpic(firstId).getStatus());
+
+        fresh.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(fresh);
+        assertEquals(TaskStatus.DONE, manager.getEpic(firstId).getStatus());
+
+        Subtask moved = new Subtask("New", "Description", secondId);
+        moved.setId(fresh.getId());
+        moved.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateSubtask(moved);
+        assertEquals(TaskStatus.DONE, manager.getEpic(firstId).getStatus());
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpic(secondId).getStatus());
+
+        done.setEpicId(secondId);
+        done.setStatus(TaskStatus.NEW);
+        manager.updateSubtask(done);
+        assertEquals(TaskStatus.NEW, manager.getEpic(firstId).getStatus(), "Epic without subtasks should be NEW.");
+        assertEquals(0, manager.getSubtasksByEpic(firstId).size());
+        assertEquals(2, manager.getSubtasksByEpic(secondId).size());
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpic(secondId).getStatus());
+    }
+
+    @Test
+    public void testViewsAreLiveAndReadOnly() {
+        Collection<Task> view = manager.view(TaskType.TASK);
+        int id = manager.addNewTask(new Task("Task", "Description"));
+        assertEquals(1, view.size(), "View should reflect later additions.");
+        assertThrows(UnsupportedOperationException.class, view::clear);
+        manager.removeTask(id);
+        assertTrue(view.isEmpty());
+        assertEquals(0, manager.stream(TaskType.EPIC).count());
+    }
+
+    @Test
+    public void testPagesCoverAllTasksOnce() {
+        int epicId = manager.addNewEpic(new Epic("Epic", "Description"));
+        for (int i = 0; i < 25; i++) {
+            manager.addNewTask(new Task("Task " + i, "Description"));
+            manager.addNewSubtask(new Subtask("Subtask " + i, "Description", epicId));
+        }
+        int seen = 0;
+        int cursor = 0;
+        TaskPage page;
+        do {
+            page = manager.page(TaskType.TASK, cursor, 10);
+            for (Task task : page.getItems()) {
+                assertTrue(task.getId() > cursor, "Pages should go in ascending id order.");
+                cursor = task.getId();
+                seen++;
+            }
+            assertEquals(cursor, page.getNextCursor());
+        } while (page.hasMore());
+        assertEquals(25, seen);
+        assertEquals(25, manager.viewSubtasksByEpic(epicId).size());
+        // после последней задачи остались только подзадачи - лишней пустой страницы быть не должно
+        assertFalse(manager.page(TaskType.TASK, 0, 25).hasMore());
+        assertTrue(manager.page(TaskType.TASK, 0, 24).hasMore());
+    }
+
+    @Test
+    public void testStatusIndexFollowsUpdatesAndEpicStatus() {
+        Task task = new Task("Task", "Description");
+        int taskId = manager.addNewTask(task);
+        int epicId = manager.addNewEpic(new Epic("Epic", "Description"));
+        Subtask subtask = new Subtask("Subtask", "Description", epicId);
+        manager.addNewSubtask(subtask);
+        assertEquals(1, manager.countByStatus(TaskType.TASK, TaskStatus.NEW));
+        assertEquals(1, manager.countByStatus(TaskType.EPIC, TaskStatus.NEW));
+
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(task);
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        assertEquals(0, manager.countByStatus(TaskType.TASK, TaskStatus.NEW));
+        assertEquals(List.of(task), manager.getByStatus(TaskType.TASK, TaskStatus.IN_PROGRESS));
+        assertEquals(List.of(subtask), manager.getByStatus(TaskType.SUBTASK, TaskStatus.DONE));
+        assertEquals(epicId, manager.getByStatus(TaskType.EPIC, TaskStatus.DONE).get(0).getId(),
+                "Epic status recalculation should move the epic in the index.");
+
+        manager.removeTask(taskId);
+        manager.removeAllEpics();
+        for (TaskType type : TaskType.values()) {
+            for (TaskStatus status : TaskStatus.values()) {
+                assertEquals(0, manager.countByStatus(type, status));
+            }
+        }
+    }
+
+    @Test
+    public void testTextSearchFollowsUpdates() {
+        Task task = new Task("Купить молоко", "Зайти в магазин после работы");
+        int taskId = manager.addNewTask(task);
+        int epicId = manager.addNewEpic(new Epic("Переезд", "Купить коробки и заказать машину"));
+
+        assertEquals(List.of(task), manager.searchAll("КУП мол", 10), "Search should be case-insensitive and match prefixes.");
+        assertEquals(2, manager.searchAny("купить", 10).size());
+        assertEquals(taskId, manager.searchAny("купить", 10).get(0).getId(), "Name matches should rank first.");
+        assertTrue(manager.searchAll("купить машину", 10).stream().allMatch(found -> found.getId() == epicId));
+
+        task.setDescription("Заказать доставку");
+        manager.updateTask(task);
+        assertTrue(manager.searchAll("магазин", 10).isEmpty(), "Old description words should leave the index.");
+        assertEquals(List.of(task), manager.searchAll("доставку", 10));
+
+        manager.removeTask(taskId);
+        assertTrue(manager.searchAll("молоко", 10).isEmpty());
+        assertEquals(1, manager.searchAny("купить", 1).size());
+    }
+
+    @Test
+    public void testChangesSinceReturnOnlyTheDelta() {
+        int keptId = manager.addNewTask(new Task("Kept", "Description"));
+        int epicId = manager.addNewEpic(new Epic("Epic", "Description"));
+        int subtaskId = manager.addNewSubtask(new Subtask("Subtask", "Description", epicId));
+        for (int i = 0; i < 1000; i++) {
+            manager.addNewTask(new Task("Task " + i, "Description"));
+        }
+
+        TaskChanges initial = manager.getChangesSince(0);
+        assertTrue(initial.isFull());
+        assertEquals(1003, initial.getChanged().size());
+
+        Subtask subtask = (Subtask) manager.getSubtask(subtaskId);
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        manager.removeTask(keptId);
+        manager.updateSubtask(subtask);
+
+        TaskChanges delta = manager.getChangesSince(initial.getVersion());
+        assertFalse(delta.isFull());
+        assertEquals(List.of(epicId, subtaskId), delta.getChanged().stream().map(Task::getId).toList(),
+                "Each changed entity should be returned once, with the epic status change.");
+        assertArrayEquals(new int[]{keptId}, delta.getRemovedIds());
+        assertEquals(manager.getSubtask(subtaskId).getVersion(), delta.getVersion());
+
+        TaskChanges none = manager.getChangesSince(delta.getVersion());
+        assertTrue(none.getChanged().isEmpty());
+        assertEquals(0, none.getRemovedIds().length);
+        assertTrue(manager.getChangesSince(delta.getVersion() + 1).isFull(), "Unknown versions should force a full sync.");
+
+        // откат пакета возвращает прежние объекты с новой версией
+        assertThrows(IllegalStateException.class, () -> manager.batch(m -> {
+            m.removeSubtask(subtaskId);
+            throw new IllegalStateException("fail");
+        }));
+        TaskChanges rolledBack = manager.getChangesSince(delta.getVersion());
+        assertTrue(rolledBack.getChanged().stream().anyMatch(task -> task.getId() == subtaskId));
+    }
 }
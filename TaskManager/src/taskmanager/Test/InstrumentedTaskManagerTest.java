@@ -0,0 +1,88 @@
+package taskmanager.test;
+
+import taskmanager.managers.FileBackedTaskManager;
+import taskmanager.managers.InstrumentedTaskManager;
+import taskmanager.managers.Managers;
+import taskmanager.managers.PersistenceMode;
+import taskmanager.metrics.LatencyHistogram;
+import taskmanager.metrics.MetricsSnapshot;
+import taskmanager.metrics.PersistenceStats;
+import taskmanager.tasks.Subtask;
+import taskmanager.tasks.Task;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedTaskManagerTest {
+
+    @Test
+    public void testCountsCallsErrorsAndHistory() {
+        InstrumentedTaskManager manager = Managers.getInstrumented();
+        int id = manager.addNewTask(new Task("Task", "Description"));
+        for (int i = 0; i < 5; i++) {
+            manager.getTask(id);
+        }
+        assertThrows(IllegalArgumentException.class, () -> manager.addNewSubtask(new Subtask("Subtask", "Description", 999)));
+
+        MetricsSnapshot snapshot = manager.snapshot();
+        assertEquals(1, snapshot.getOperation("addNewTask").getCount());
+        assertEquals(5, snapshot.getOperation("getTask").getCount());
+        assertEquals(1, snapshot.getOperation("addNewSubtask").getErrors());
+        assertEquals(5, snapshot.getHistory().getAdds());
+        assertEquals(4, snapshot.getHistory().getHits(), "Repeated views of the same task are hits.");
+
+        manager.setEnabled(false);
+        manager.getTask(id);
+        assertEquals(5, manager.snapshot().getOperation("getTask").getCount(), "Disabled wrapper should not record.");
+    }
+
+    @Test
+    public void testRecordsSnapshotWrites(@TempDir Path dir) {
+        File file = dir.resolve("tasks.csv").toFile();
+        InstrumentedTaskManager manager = Managers.instrument(new FileBackedTaskManager(file, PersistenceMode.SNAPSHOT));
+        manager.addNewTask(new Task("Task", "Description"));
+        manager.addNewTask(new Task("Task", "Description"));
+
+        PersistenceStats persistence = manager.snapshot().getPersistence();
+        assertEquals(2, persistence.getSnapshotCount());
+        assertEquals(file.length(), persistence.getLastSnapshotBytes());
+        assertTrue(persistence.getSnapshotBytes() > persistence.getLastSnapshotBytes());
+    }
+
+    @Test
+    public void testExposedThroughJmx() throws Exception {
+        InstrumentedTaskManager manager = Managers.getInstrumented();
+        manager.addNewTask(new Task("Task", "Description"));
+        manager.registerMBean("jmx-test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("taskmanager:type=TaskManagerMetrics,name=\"jmx-test\"");
+            TabularData operations = (TabularData) server.getAttribute(name, "Operations");
+            assertNotNull(operations.get(new Object[]{"addNewTask"}));
+            assertEquals(true, server.getAttribute(name, "Enabled"));
+        } finally {
+            manager.unregisterMBean();
+        }
+    }
+
+    @Test
+    public void testHistogramPercentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100_000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100_000, histogram.count());
+        assertEquals(50_000, histogram.percentile(0.5), 50_000 * 0.04);
+        assertEquals(99_000, histogram.percentile(0.99), 99_000 * 0.04);
+        assertEquals(100_000, histogram.percentile(1.0));
+    }
+}
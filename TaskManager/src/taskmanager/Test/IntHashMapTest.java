@@ -0,0 +1,110 @@
+package taskmanager.test;
+
+import taskmanager.managers.ConcurrentIntMap;
+import taskmanager.managers.DenseIntMap;
+import taskmanager.managers.IntHashMap;
+import taskmanager.managers.IntMap;
+import taskmanager.managers.IntSet;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntHashMapTest {
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        checkAgainstHashMap(new IntHashMap<>(), 1 << 12);
+        checkAgainstHashMap(new DenseIntMap<>(), 1 << 12);
+        checkAgainstHashMap(new ConcurrentIntMap<>(), 1 << 12);
+    }
+
+    // Читатель без блокировок не должен терять ключ, который никто не удалял,
+    // пока писатель рядом добавляет и удаляет другие ключи (и перестраивает таблицы).
+    @Test
+    public void testConcurrentReadsDuringWrites() throws InterruptedException {
+        ConcurrentIntMap<Integer> map = new ConcurrentIntMap<>();
+        for (int key = 0; key < 1000; key += 2) {
+            map.put(key, key);
+        }
+        Thread writer = new Thread(() -> {
+            for (int round = 0; round < 200; round++) {
+                for (int key = 1; key < 1000; key += 2) {
+                    map.put(key + round * 1000, key);
+                }
+                for (int key = 1; key < 1000; key += 2) {
+                    map.remove(key + round * 1000);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            for (int key = 0; key < 1000; key += 2) {
+                assertEquals(key, map.get(key));
+            }
+        }
+        writer.join();
+        assertEquals(500, map.size());
+    }
+
+    @Test
+    public void testNegativeKeysInHashedLayout() {
+        IntMap<String> map = new IntHashMap<>();
+        map.put(-5, "minus five");
+        map.put(0, "zero");
+        assertEquals("minus five", map.get(-5));
+        assertEquals("zero", map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertThrows(IllegalArgumentException.class, () -> new DenseIntMap<String>().put(-1, "x"));
+    }
+
+    @Test
+    public void testIntSetMatchesHashSet() {
+        IntSet set = new IntSet();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(1 << 12);
+            if (random.nextBoolean()) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (int value : set.toArray()) {
+            assertTrue(expected.contains(value));
+        }
+        expected.forEach(value -> assertTrue(set.contains(value)));
+    }
+
+    private void checkAgainstHashMap(IntMap<Integer> map, int keyRange) {
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(keyRange);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        int[] visited = {0};
+        map.forEachKey(key -> {
+            assertTrue(expected.containsKey(key));
+            visited[0]++;
+        });
+        assertEquals(expected.size(), visited[0]);
+        assertEquals(expected.size(), map.values().stream().count());
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+package taskmanager.test;
+
+import taskmanager.managers.OffHeapTaskManager;
+import taskmanager.tasks.Epic;
+import taskmanager.tasks.Subtask;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+import taskmanager.tasks.TaskType;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapTaskManagerTest {
+    private final OffHeapTaskManager manager = new OffHeapTaskManager();
+
+    @Test
+    public void testViewsReadStoredFields() {
+        int taskId = manager.addNewTask(new Task("Задача", null));
+        Epic epic = new Epic("Epic", "Epic description");
+        int epicId = manager.addNewEpic(epic);
+        int subtaskId = manager.addNewSubtask(new Subtask("Subtask", "Subtask description", epicId));
+
+        Task task = manager.getTask(taskId);
+        assertEquals("Задача", task.getName());
+        assertNull(task.getDescription());
+        assertEquals(TaskStatus.NEW, task.getStatus());
+        Subtask subtask = (Subtask) manager.getSubtask(subtaskId);
+        assertEquals(epicId, subtask.getEpicId());
+        assertInstanceOf(Epic.class, manager.getEpic(epicId));
+        assertEquals(1, manager.getSubtasksByEpic(epicId).size());
+        assertTrue(manager.getOffHeapBytes() > 0);
+    }
+
+    @Test
+    public void testViewChangesApplyOnlyThroughUpdate() {
+        int epicId = manager.addNewEpic(new Epic("Epic", "Epic description"));
+        int subtaskId = manager.addNewSubtask(new Subtask("Subtask", "Description", epicId));
+
+        Subtask subtask = (Subtask) manager.getSubtask(subtaskId);
+        subtask.setStatus(TaskStatus.DONE);
+        assertEquals(TaskStatus.NEW, manager.getSubtask(subtaskId).getStatus());
+        assertEquals(TaskStatus.NEW, manager.getEpic(epicId).getStatus());
+
+        manager.updateSubtask(subtask);
+        assertEquals(TaskStatus.DONE, manager.getSubtask(subtaskId).getStatus());
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus());
+        assertEquals(1, manager.countByStatus(TaskType.EPIC, TaskStatus.DONE));
+
+        assertThrows(IllegalStateException.class, () -> manager.batch(m -> {
+            m.removeSubtask(subtaskId);
+            m.addNewSubtask(new Subtask("Other", "Description", epicId));
+            throw new IllegalStateException("fail");
+        }));
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus());
+        assertEquals(1, manager.getSubtasks().size());
+
+        manager.removeEpic(epicId);
+        assertNull(manager.getSubtask(subtaskId));
+        assertTrue(manager.getEpics().isEmpty());
+    }
+
+    @Test
+    public void testRolledBackIdsAreNotReused() {
+        List<Task> held = new ArrayList<>();
+        assertThrows(IllegalStateException.class, () -> manager.batch(tx -> {
+            held.add(tx.getTask(tx.addNewTask(new Task("Rolled back", "Description"))));
+            throw new IllegalStateException("Abort");
+        }));
+        assertTrue(manager.getTasks().isEmpty());
+
+        int nextId = manager.addNewTask(new Task("Next", "Description"));
+        assertNotEquals(held.get(0).getId(), nextId, "Ids of a rolled back batch should not be reused.");
+        assertNotEquals("Next", held.get(0).getName(), "Views from a rolled back batch should not alias new tasks.");
+        assertEquals(1, manager.getTasks().size());
+    }
+
+    @Test
+    public void testCompactionKeepsLiveStrings() {
+        int keptId = manager.addNewTask(new Task("Kept", "Description"));
+        for (int i = 0; i < 1000; i++) {
+            Task task = new Task("Removed " + i, "Description " + i);
+            manager.removeTask(manager.addNewTask(task));
+        }
+        Task kept = manager.getTask(keptId);
+        kept.setDescription("Updated");
+        manager.updateTask(kept);
+        assertTrue(manager.getStringGarbageBytes() > 0);
+
+        manager.compactStrings();
+        assertEquals(0, manager.getStringGarbageBytes());
+        assertEquals("Kept", manager.getTask(keptId).getName());
+        assertEquals("Updated", manager.getTask(keptId).getDescription());
+        assertEquals(1, manager.getTasks().size());
+    }
+
+    @Test
+    public void testCompactionInvalidatesViewsOfDeletedTasks() {
+        int removedId = manager.addNewTask(new Task("Removed", "Description"));
+        Task held = manager.getTask(removedId);
+        Task copy = new Task(held);
+        Task edited = manager.getTask(removedId);
+        edited.setDescription("Local");
+        manager.removeTask(removedId);
+
+        assertEquals("Removed", held.getName(), "Views should keep the last values until compaction.");
+        manager.compactStrings();
+        assertNull(held.getName());
+        assertNull(held.getDescription());
+        assertEquals("Local", edited.getDescription(), "Local changes of a view should survive compaction.");
+        assertEquals("Removed", copy.getName());
+        assertEquals("Description", copy.getDescription());
+    }
+}
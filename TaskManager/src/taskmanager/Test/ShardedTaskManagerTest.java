@@ -0,0 +1,186 @@
+package taskmanager.test;
+
+import taskmanager.managers.PersistenceMode;
+import taskmanager.managers.PersistenceOptions;
+import taskmanager.managers.ShardedTaskManager;
+import taskmanager.managers.TaskChanges;
+import taskmanager.managers.TaskPage;
+import taskmanager.tasks.Epic;
+import taskmanager.tasks.Subtask;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+import taskmanager.tasks.TaskType;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedTaskManagerTest {
+    private static final PersistenceOptions OPTIONS = PersistenceOptions.synchronous(PersistenceMode.JOURNAL);
+
+    @Test
+    public void testShardsReloadInParallel(@TempDir File dir) {
+        File file = new File(dir, "tasks.csv");
+        List<Integer> epicIds = new ArrayList<>();
+        int subtaskId;
+        try (ShardedTaskManager manager = new ShardedTaskManager(file, 4, OPTIONS)) {
+            for (int i = 0; i < 8; i++) {
+                manager.addNewTask(new Task("Task " + i, "Description"));
+                epicIds.add(manager.addNewEpic(new Epic("Epic " + i, "Description")));
+            }
+            for (int epicId : epicIds) {
+                manager.addNewSubtask(new Subtask("Subtask", "Description", epicId));
+            }
+            Subtask subtask = manager.getSubtasksByEpic(epicIds.get(3)).get(0);
+            subtaskId = subtask.getId();
+            subtask.setStatus(TaskStatus.DONE);
+            manager.updateSubtask(subtask);
+            manager.getSubtask(subtaskId);
+            assertEquals(TaskStatus.DONE, manager.getEpic(epicIds.get(3)).getStatus());
+            assertEquals(List.of(subtaskId, epicIds.get(3)), manager.getHistory().stream().map(Task::getId).toList());
+
+            // подзадача живёт в шарде эпика, перенос в другой шард запрещён
+            Subtask moved = manager.getSubtasksByEpic(epicIds.get(0)).get(0);
+            moved.setEpicId(epicIds.get(1));
+            assertThrows(IllegalArgumentException.class, () -> manager.updateSubtask(moved));
+        }
+
+        try (ShardedTaskManager loaded = ShardedTaskManager.loadFromFile(file, 4, OPTIONS)) {
+            assertEquals(8, loaded.getTasks().size());
+            assertEquals(8, loaded.getEpics().size());
+            assertEquals(8, loaded.view(TaskType.SUBTASK).size());
+            assertEquals(TaskStatus.DONE, loaded.getSubtask(subtaskId).getStatus());
+            assertEquals(1, loaded.countByStatus(TaskType.EPIC, TaskStatus.DONE));
+
+            // страницы обходят шарды по возрастанию id
+            List<Integer> paged = new ArrayList<>();
+            int cursor = 0;
+            TaskPage page;
+            do {
+                page = loaded.page(TaskType.EPIC, cursor, 3);
+                page.getItems().forEach(epic -> paged.add(epic.getId()));
+                cursor = page.getNextCursor();
+            } while (page.hasMore());
+            assertEquals(epicIds.stream().sorted().toList(), paged);
+
+            List<Integer> ids = loaded.getTasks().stream().map(Task::getId).toList();
+            int next = loaded.addNewTask(new Task("Next", "Description"));
+            assertFalse(ids.contains(next), "Each shard should continue its own id range after loading.");
+            assertEquals(9, loaded.getTasks().size());
+        }
+
+        assertThrows(IllegalStateException.class, () -> ShardedTaskManager.loadFromFile(file, 2, OPTIONS));
+    }
+
+    @Test
+    public void testBatchRollsBackEveryShard(@TempDir File dir) {
+        try (ShardedTaskManager manager = new ShardedTaskManager(new File(dir, "tasks.csv"), 3, OPTIONS)) {
+            int epicId = manager.addNewEpic(new Epic("Epic", "Description"));
+            assertThrows(IllegalArgumentException.class, () -> manager.batch(tx -> {
+                for (int i = 0; i < 6; i++) {
+                    tx.addNewTask(new Task("Task " + i, "Description"));
+                }
+                tx.addNewSubtask(new Subtask("Subtask", "Description", epicId));
+                tx.addNewSubtask(new Subtask("Broken", "Description", -1));
+            }));
+            assertTrue(manager.getTasks().isEmpty());
+            assertTrue(manager.getSubtasks().isEmpty());
+
+            manager.batch(tx -> {
+                tx.addNewTask(new Task("Kept", "Description"));
+                tx.removeAllEpics();
+            });
+            assertEquals(1, manager.getTasks().size());
+            assertTrue(manager.getEpics().isEmpty());
+        }
+    }
+
+    @Test
+    public void testPageAndChangesSpanShards(@TempDir File dir) {
+        try (ShardedTaskManager manager = new ShardedTaskManager(new File(dir, "tasks.csv"), 4, OPTIONS)) {
+            int first = manager.addNewEpic(new Epic("First", "Description"));
+            int second = manager.addNewEpic(new Epic("Second", "Description"));
+            // эпики лежат в шардах 0 и 1, в шардах 2 и 3 их нет
+            assertFalse(manager.page(TaskType.EPIC, 0, 2).hasMore(), "Empty later shards should not report more.");
+            assertTrue(manager.page(TaskType.EPIC, 0, 1).hasMore());
+
+            TaskChanges initial = manager.getChangesSince(0);
+            assertTrue(initial.isFull());
+            assertEquals(2, initial.getChanged().size());
+
+            Subtask subtask = new Subtask("Subtask", "Description", second);
+            int subtaskId = manager.addNewSubtask(subtask);
+            int taskId = manager.addNewTask(new Task("Task", "Description"));
+            manager.removeEpic(first);
+
+            TaskChanges delta = manager.getChangesSince(initial.getVersion());
+            assertFalse(delta.isFull());
+            assertEquals(List.of(subtaskId, taskId).stream().sorted().toList(),
+                    delta.getChanged().stream().map(Task::getId).sorted().toList());
+            assertArrayEquals(new int[]{first}, delta.getRemovedIds());
+
+            TaskChanges none = manager.getChangesSince(delta.getVersion());
+            assertTrue(none.getChanged().isEmpty());
+            assertEquals(delta.getVersion(), none.getVersion());
+            assertTrue(manager.getChangesSince(delta.getVersion() + 100).isFull(), "Unknown versions should force a full sync.");
+        }
+    }
+
+    @Test
+    public void testVersionFromBeforeRestartForcesFullSync(@TempDir File dir) {
+        File file = new File(dir, "tasks.csv");
+        long version;
+        try (ShardedTaskManager manager = new ShardedTaskManager(file, 2, OPTIONS)) {
+            for (int i = 0; i < 3; i++) {
+                manager.addNewTask(new Task("Before " + i, "Description"));
+            }
+            version = manager.getChangesSince(0).getVersion();
+        }
+
+        try (ShardedTaskManager loaded = ShardedTaskManager.loadFromFile(file, 2, OPTIONS)) {
+            // после 3 изменений новый экземпляр выдаёт ту же сумму версий шардов, что и старый
+            for (int i = 0; i < 3; i++) {
+                loaded.addNewTask(new Task("After " + i, "Description"));
+            }
+            loaded.getChangesSince(0);
+            for (int i = 3; i < 5; i++) {
+                loaded.addNewTask(new Task("After " + i, "Description"));
+            }
+            TaskChanges changes = loaded.getChangesSince(version);
+            assertTrue(changes.isFull(), "A version issued before the restart should force a full sync.");
+            assertEquals(8, changes.getChanged().size());
+        }
+    }
+
+    @Test
+    public void testReadsRunAlongsideWrites(@TempDir File dir) throws Exception {
+        try (ShardedTaskManager manager = new ShardedTaskManager(new File(dir, "tasks.csv"), 2, OPTIONS)) {
+            AtomicBoolean done = new AtomicBoolean();
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    int epicId = manager.addNewEpic(new Epic("Epic " + i, "Description"));
+                    manager.addNewSubtask(new Subtask("Subtask " + i, "Description", epicId));
+                    if (i % 3 == 0) {
+                        manager.removeEpic(epicId);
+                    }
+                }
+                done.set(true);
+            });
+            writer.start();
+            while (!done.get()) {
+                manager.getEpics().forEach(epic -> manager.getSubtasksByEpic(epic.getId()));
+                manager.page(TaskType.SUBTASK, 0, 50);
+                manager.countByStatus(TaskType.EPIC, TaskStatus.NEW);
+            }
+            writer.join();
+            assertEquals(1333, manager.getEpics().size());
+            assertEquals(1333, manager.getSubtasks().size());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package taskmanager.test;
+
+import taskmanager.managers.InMemoryTaskManager;
+import taskmanager.managers.TaskEvent;
+import taskmanager.managers.TaskEventRing;
+import taskmanager.managers.TaskEventSubscription;
+import taskmanager.tasks.Epic;
+import taskmanager.tasks.Subtask;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+import taskmanager.tasks.TaskType;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskEventRingTest {
+    private final InMemoryTaskManager manager = new InMemoryTaskManager();
+
+    @Test
+    public void testMutationsArePublishedInOrder() throws InterruptedException {
+        TaskEventSubscription subscription = manager.getEvents().subscribe();
+        int epicId = manager.addNewEpic(new Epic("Epic", "Description"));
+        int subtaskId = manager.addNewSubtask(new Subtask("Subtask", "Description", epicId));
+        Subtask subtask = (Subtask) manager.getSubtask(subtaskId);
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        manager.removeSubtask(subtaskId);
+
+        List<TaskEvent> events = subscription.poll(100, 1, TimeUnit.SECONDS);
+        assertEquals(List.of(TaskEvent.Kind.CREATED, TaskEvent.Kind.CREATED, TaskEvent.Kind.UPDATED,
+                        TaskEvent.Kind.EPIC_STATUS_CHANGED, TaskEvent.Kind.REMOVED, TaskEvent.Kind.EPIC_STATUS_CHANGED),
+                events.stream().map(TaskEvent::getKind).toList());
+        assertEquals(TaskType.SUBTASK, events.get(1).getType());
+        assertEquals(epicId, events.get(1).getEpicId());
+        assertEquals(TaskStatus.DONE, events.get(2).getStatus());
+        assertEquals(TaskStatus.NEW, events.get(3).getPreviousStatus());
+        assertEquals(TaskStatus.DONE, events.get(3).getStatus());
+        assertEquals(6, subscription.getCursor());
+
+        // откаченный пакет не публикует ничего, зафиксированный - всё сразу после фиксации
+        assertThrows(IllegalStateException.class, () -> manager.batch(m -> {
+            m.addNewTask(new Task("Rolled back", "Description"));
+            throw new IllegalStateException("fail");
+        }));
+        assertTrue(subscription.poll(100).isEmpty());
+        manager.batch(m -> {
+            m.addNewTask(new Task("First", "Description"));
+            m.addNewTask(new Task("Second", "Description"));
+        });
+        assertEquals(List.of("First", "Second"), subscription.poll(100).stream().map(TaskEvent::getName).toList());
+    }
+
+    @Test
+    public void testSlowSubscriberIsDroppedWithoutBlockingWriters() {
+        TaskEventRing ring = manager.getEvents();
+        TaskEventSubscription fast = ring.subscribe();
+        TaskEventSubscription slow = ring.subscribe();
+        int received = 0;
+        for (int i = 0; i < ring.getCapacity() * 2; i++) {
+            manager.addNewTask(new Task("Task " + i, "Description"));
+            if (i % 100 == 0) {
+                received += fast.poll(1000).size();
+            }
+        }
+        received += fast.poll(Integer.MAX_VALUE).size();
+        assertEquals(ring.getCapacity() * 2, received);
+        assertEquals(0, fast.getLag());
+
+        assertThrows(IllegalStateException.class, () -> slow.poll(10));
+        assertTrue(slow.isDropped());
+        assertEquals(1, ring.getSubscriberCount());
+        fast.close();
+        assertEquals(0, ring.getSubscriberCount());
+    }
+}
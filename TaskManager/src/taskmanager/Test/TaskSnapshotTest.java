@@ -0,0 +1,107 @@
+package taskmanager.test;
+
+import taskmanager.managers.ConcurrentTaskManager;
+import taskmanager.managers.InMemoryTaskManager;
+import taskmanager.managers.TaskSnapshot;
+import taskmanager.tasks.Epic;
+import taskmanager.tasks.Subtask;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+import taskmanager.tasks.TaskType;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskSnapshotTest {
+
+    @Test
+    public void testSnapshotDoesNotSeeLaterWrites() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        int epicId = manager.addNewEpic(new Epic("Epic", "Description"));
+        int subtaskId = manager.addNewSubtask(new Subtask("Subtask", "Description", epicId));
+        TaskSnapshot before = manager.snapshot();
+
+        Subtask subtask = (Subtask) manager.getSubtask(subtaskId);
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        manager.addNewTask(new Task("Task", "Description"));
+        assertThrows(IllegalStateException.class, () -> manager.batch(m -> {
+            m.removeEpic(epicId);
+            throw new IllegalStateException("fail");
+        }));
+
+        assertEquals(TaskStatus.NEW, before.getSubtask(subtaskId).getStatus());
+        assertEquals(TaskStatus.NEW, before.getEpic(epicId).getStatus());
+        assertTrue(before.getTasks().isEmpty());
+
+        TaskSnapshot after = manager.snapshot();
+        assertEquals(TaskStatus.DONE, after.getSubtask(subtaskId).getStatus());
+        assertEquals(TaskStatus.DONE, after.getEpic(epicId).getStatus());
+        assertEquals(1, after.size(TaskType.TASK));
+        assertEquals(List.of(subtaskId), after.getSubtasksByEpic(epicId).stream().map(Task::getId).toList());
+
+        manager.removeAllEpics();
+        assertEquals(0, manager.snapshot().size(TaskType.SUBTASK));
+        assertEquals(1, after.size(TaskType.SUBTASK));
+    }
+
+    @Test
+    public void testSnapshotMatchesManagerAfterRandomWrites() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        manager.snapshot();
+        Random random = new Random(42);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            if (ids.isEmpty() || random.nextInt(3) > 0) {
+                ids.add(manager.addNewTask(new Task("Task " + i, "Description")));
+            } else {
+                manager.removeTask(ids.remove(random.nextInt(ids.size())));
+            }
+        }
+        TaskSnapshot snapshot = manager.snapshot();
+        TreeSet<Integer> expected = new TreeSet<>(ids);
+        TreeSet<Integer> actual = new TreeSet<>();
+        snapshot.forEach(TaskType.TASK, task -> actual.add(task.getId()));
+        assertEquals(expected, actual);
+        assertEquals(ids.size(), snapshot.size(TaskType.TASK));
+        for (int id : ids) {
+            assertEquals("Task", snapshot.getTask(id).getName().substring(0, 4));
+        }
+    }
+
+    @Test
+    public void testReadersSeeStableSnapshotWhileWritersRun() throws InterruptedException {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager();
+        for (int i = 0; i < 1000; i++) {
+            manager.addNewTask(new Task("Task " + i, "Description"));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; running.get(); i++) {
+                int id = manager.addNewTask(new Task("Extra " + i, "Description"));
+                manager.removeTask(id);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 100; i++) {
+                TaskSnapshot snapshot = manager.snapshot();
+                int[] count = new int[1];
+                snapshot.forEach(TaskType.TASK, task -> count[0]++);
+                assertEquals(snapshot.size(TaskType.TASK), count[0]);
+                assertEquals(count[0], snapshot.getTasks().size());
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+        assertEquals(1000, manager.snapshot().size(TaskType.TASK));
+    }
+}
@@ -0,0 +1,38 @@
+package taskmanager.test;
+
+import taskmanager.managers.InMemoryTaskManager;
+import taskmanager.managers.Managers;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TextPool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextPoolTest {
+    @Test
+    public void testRepeatedTextIsShared() {
+        InMemoryTaskManager manager = new InMemoryTaskManager(Managers.getDefaultHistory());
+        // строки собираются заново, как при разборе запроса
+        int first = manager.addNewTask(new Task(new StringBuilder("Template").toString(), "Описание " + 1));
+        int second = manager.addNewTask(new Task(new StringBuilder("Template").toString(), "Описание " + 1));
+
+        assertSame(manager.getTask(first).getName(), manager.getTask(second).getName());
+        assertSame(manager.getTask(first).getDescription(), manager.getTask(second).getDescription());
+        assertNull(TextPool.intern(null));
+    }
+
+    @Test
+    public void testHashDoesNotDependOnText() {
+        Task task = new Task(7, "Name", "Description");
+        Set<Task> tasks = new HashSet<>();
+        tasks.add(task);
+
+        task.setDescription("Edited");
+        assertTrue(tasks.contains(task));
+        assertTrue(tasks.contains(new Task(7, "Other", "Other")));
+    }
+}
@@ -0,0 +1,458 @@
+package taskmanager.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import taskmanager.managers.Managers;
+import taskmanager.managers.TaskChanges;
+import taskmanager.managers.TaskManager;
+import taskmanager.managers.TaskPage;
+import taskmanager.tasks.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// HTTP/JSON API поверх TaskManager на com.sun.net.httpserver. Каждый запрос - в своём виртуальном потоке,
+// поэтому менеджер должен быть потокобезопасным (по умолчанию ConcurrentTaskManager).
+// Соединения переиспользуются (HTTP/1.1 keep-alive): у каждого ответа есть длина или chunked-кодирование.
+//
+// GET    /tasks                  все задачи; ?after=<id>&limit=<n> - одна страница
+// POST   /tasks                  создать (без id) или обновить (с id) -> {"id":...}
+// DELETE /tasks                  удалить все
+// GET    /tasks/{id}             задача или 404
+// DELETE /tasks/{id}
+// POST   /tasks/batch            массив задач: создание и обновление одним пакетом -> массив id
+// То же для /epics и /subtasks, плюс GET /epics/{id}/subtasks и GET /history.
+// GET    /changes?since=<version> изменения после версии: {"version":..,"full":..,"changed":[...],"removed":[...]}
+public class HttpTaskServer {
+    public static final int DEFAULT_PORT = 8080;
+
+    // Списки пишутся страницами такого размера, не копируя всю коллекцию.
+    private static final int STREAM_PAGE = 1024;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    static {
+        // Без TCP_NODELAY маленький ответ ждёт ACK заголовков: Nagle плюс отложенный ACK клиента дают ~40 мс
+        // на каждый запрос keep-alive соединения. Свойство читается при первом создании HttpServer.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final TaskManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public HttpTaskServer() throws IOException {
+        this(Managers.getConcurrent(), DEFAULT_PORT);
+    }
+
+    public HttpTaskServer(TaskManager manager, int port) throws IOException {
+        this(manager, new InetSocketAddress(port));
+    }
+
+    public HttpTaskServer(TaskManager manager, InetSocketAddress address) throws IOException {
+        this.manager = manager;
+        this.server = HttpServer.create(address, 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Ждёт до delaySeconds, пока закончатся начатые запросы.
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        HttpTaskServer server = new HttpTaskServer(Managers.getConcurrent(), port);
+        server.start();
+        System.out.println("Task server listening on port " + server.getPort());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (NotFoundException e) {
+            sendError(exchange, 404, e.getMessage());
+        } catch (MethodNotAllowedException e) {
+            sendError(exchange, 405, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+        if (path.length == 1 && path[0].equals("history")) {
+            requireMethod(method, "GET");
+            sendList(exchange, manager.getHistory());
+            return;
+        }
+        if (path.length == 1 && path[0].equals("changes")) {
+            requireMethod(method, "GET");
+            sendChanges(exchange);
+            return;
+        }
+        TaskType type = typeOf(path[0]);
+        if (path.length == 1) {
+            switch (method) {
+                case "GET":
+                    sendCollection(exchange, type);
+                    return;
+                case "POST":
+                    Task task = TaskJson.read(JsonParser.parse(readBody(exchange)), type);
+                    boolean created = task.getId() == 0;
+                    int id = save(manager, task, type);
+                    send(exchange, created ? 201 : 200, json -> json.beginObject().name("id").value(id).endObject());
+                    return;
+                case "DELETE":
+                    removeAll(type);
+                    sendNoContent(exchange);
+                    return;
+                default:
+                    throw new MethodNotAllowedException(method);
+            }
+        }
+        if (path.length == 2 && path[1].equals("batch")) {
+            requireMethod(method, "POST");
+            sendIds(exchange, saveAll(readBody(exchange), type));
+            return;
+        }
+        int id = parseId(path[1]);
+        if (path.length == 3 && type == TaskType.EPIC && path[2].equals("subtasks")) {
+            requireMethod(method, "GET");
+            if (!manager.contains(TaskType.EPIC, id)) {
+                throw new NotFoundException("Epic " + id + " not found.");
+            }
+            sendList(exchange, new ArrayList<>(manager.getSubtasksByEpic(id)));
+            return;
+        }
+        if (path.length != 2) {
+            throw new NotFoundException("Unknown path " + exchange.getRequestURI().getPath());
+        }
+        switch (method) {
+            case "GET":
+                Task task = getById(type, id);
+                if (task == null) {
+                    throw new NotFoundException(type + " " + id + " not found.");
+                }
+                send(exchange, 200, json -> TaskJson.write(json, task));
+                return;
+            case "DELETE":
+                removeById(type, id);
+                sendNoContent(exchange);
+                return;
+            default:
+                throw new MethodNotAllowedException(method);
+        }
+    }
+
+    // POST с id только обновляет: updateEpic вставил бы эпик с чужим id, не резервируя его.
+    private static int save(TaskManager target, Task task, TaskType type) {
+        if (task.getId() != 0) {
+            requireExisting(target, type, task.getId());
+            try {
+                switch (type) {
+                    case EPIC:
+                        target.updateEpic((Epic) task);
+                        break;
+                    case SUBTASK:
+                        target.updateSubtask((Subtask) task);
+                        break;
+                    default:
+                        target.updateTask(task);
+                }
+            } catch (IllegalArgumentException e) {
+                // задачу могли удалить между проверкой и обновлением
+                requireExisting(target, type, task.getId());
+                throw e;
+            }
+            return task.getId();
+        }
+        switch (type) {
+            case EPIC:
+                return target.addNewEpic((Epic) task);
+            case SUBTASK:
+                return target.addNewSubtask((Subtask) task);
+            default:
+                return target.addNewTask(task);
+        }
+    }
+
+    private static void requireExisting(TaskManager target, TaskType type, int id) {
+        if (!target.contains(type, id)) {
+            throw new NotFoundException(type + " " + id + " not found.");
+        }
+    }
+
+    // Всё или ничего: ошибка в любой задаче откатывает пакет целиком.
+    private List<Integer> saveAll(String body, TaskType type) {
+        Object parsed = JsonParser.parse(body);
+        if (!(parsed instanceof List)) {
+            throw new IllegalArgumentException("Batch body must be a JSON array.");
+        }
+        List<Task> tasks = new ArrayList<>();
+        for (Object item : (List<?>) parsed) {
+            tasks.add(TaskJson.read(item, type));
+        }
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        manager.batch(tx -> {
+            for (Task task : tasks) {
+                ids.add(save(tx, task, type));
+            }
+        });
+        return ids;
+    }
+
+    private Task getById(TaskType type, int id) {
+        switch (type) {
+            case EPIC:
+                return manager.getEpic(id);
+            case SUBTASK:
+                return manager.getSubtask(id);
+            default:
+                return manager.getTask(id);
+        }
+    }
+
+    private void removeById(TaskType type, int id) {
+        switch (type) {
+            case EPIC:
+                manager.removeEpic(id);
+                break;
+            case SUBTASK:
+                manager.removeSubtask(id);
+                break;
+            default:
+                manager.removeTask(id);
+        }
+    }
+
+    private void removeAll(TaskType type) {
+        switch (type) {
+            case EPIC:
+                manager.removeAllEpics();
+                break;
+            case SUBTASK:
+                manager.removeAllSubtasks();
+                break;
+            default:
+                manager.removeAllTasks();
+        }
+    }
+
+    // Без параметров - весь список потоком, страница за страницей; с limit - одна страница и курсор.
+    private void sendCollection(HttpExchange exchange, TaskType type) throws IOException {
+        String limit = queryParameter(exchange.getRequestURI(), "limit");
+        String after = queryParameter(exchange.getRequestURI(), "after");
+        if (limit != null) {
+            TaskPage page = manager.page(type, after == null ? 0 : parseNumber("after", after),
+                    parseNumber("limit", limit));
+            send(exchange, 200, json -> {
+                json.beginObject().name("items").beginArray();
+                for (Task task : page.getItems()) {
+                    TaskJson.write(json, task);
+                }
+                json.endArray()
+                        .name("nextCursor").value(page.getNextCursor())
+                        .name("hasMore").value(page.hasMore())
+                        .endObject();
+            });
+            return;
+        }
+        stream(exchange, json -> {
+            json.beginArray();
+            int cursor = 0;
+            TaskPage page;
+            do {
+                page = manager.page(type, cursor, STREAM_PAGE);
+                for (Task task : page.getItems()) {
+                    TaskJson.write(json, task);
+                }
+                cursor = page.getNextCursor();
+            } while (page.hasMore());
+            json.endArray();
+        });
+    }
+
+    private void sendChanges(HttpExchange exchange) throws IOException {
+        String since = queryParameter(exchange.getRequestURI(), "since");
+        TaskChanges changes = manager.getChangesSince(since == null ? 0 : parseVersion(since));
+        stream(exchange, json -> {
+            json.beginObject()
+                    .name("version").value(changes.getVersion())
+                    .name("full").value(changes.isFull())
+                    .name("changed").beginArray();
+            for (Task task : changes.getChanged()) {
+                TaskJson.write(json, task);
+            }
+            json.endArray().name("removed").beginArray();
+            for (int id : changes.getRemovedIds()) {
+                json.value(id);
+            }
+            json.endArray().endObject();
+        });
+    }
+
+    private void sendList(HttpExchange exchange, List<? extends Task> tasks) throws IOException {
+        stream(exchange, json -> {
+            json.beginArray();
+            for (Task task : tasks) {
+                TaskJson.write(json, task);
+            }
+            json.endArray();
+        });
+    }
+
+    private void sendIds(HttpExchange exchange, List<Integer> ids) throws IOException {
+        stream(exchange, json -> {
+            json.beginArray();
+            for (int id : ids) {
+                json.value(id);
+            }
+            json.endArray();
+        });
+    }
+
+    // Небольшой ответ: собирается целиком, отправляется с Content-Length.
+    private static void send(HttpExchange exchange, int status, Body body) throws IOException {
+        StringWriter buffer = new StringWriter();
+        body.write(new JsonWriter(buffer));
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    // Список: chunked-ответ, JSON пишется по мере обхода.
+    private static void stream(HttpExchange exchange, Body body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8),
+                8192);
+        JsonWriter json = new JsonWriter(writer);
+        body.write(json);
+        json.flush();
+    }
+
+    private static void sendNoContent(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    // Если заголовки уже ушли (ошибка посреди потокового ответа), остаётся только закрыть обмен.
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        send(exchange, status, json -> json.beginObject().name("error").value(message).endObject());
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static TaskType typeOf(String collection) {
+        switch (collection) {
+            case "tasks":
+                return TaskType.TASK;
+            case "epics":
+                return TaskType.EPIC;
+            case "subtasks":
+                return TaskType.SUBTASK;
+            default:
+                throw new NotFoundException("Unknown path /" + collection);
+        }
+    }
+
+    private static int parseId(String value) {
+        try {
+            int id = Integer.parseInt(value);
+            if (id >= 0) {
+                return id;
+            }
+        } catch (NumberFormatException e) {
+            // ниже - общий ответ
+        }
+        throw new NotFoundException("Invalid id " + value);
+    }
+
+    private static int parseNumber(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be an integer.");
+        }
+    }
+
+    private static long parseVersion(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter since must be an integer.");
+        }
+    }
+
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return pair.substring(eq + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new MethodNotAllowedException(method);
+        }
+    }
+
+    private interface Body {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    private static class NotFoundException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        NotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    private static class MethodNotAllowedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        MethodNotAllowedException(String method) {
+            super("Method " + method + " is not allowed here.");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package taskmanager.http;
+
+import taskmanager.tasks.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+// Задача в JSON: {"id":1,"type":"SUBTASK","name":"...","description":"...","status":"NEW","epicId":2}.
+final class TaskJson {
+    private TaskJson() {
+    }
+
+    static void write(JsonWriter json, Task task) throws IOException {
+        json.beginObject()
+                .name("id").value(task.getId())
+                .name("type").value(typeOf(task).name())
+                .name("name").value(task.getName())
+                .name("description").value(task.getDescription())
+                .name("status").value(task.getStatus().name());
+        if (task instanceof Subtask) {
+            json.name("epicId").value(((Subtask) task).getEpicId());
+        }
+        json.endObject();
+    }
+
+    // id 0 или его отсутствие - новая задача.
+    static Task read(Object value, TaskType type) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Task must be a JSON object.");
+        }
+        Map<?, ?> fields = (Map<?, ?>) value;
+        int id = (int) number(fields, "id", 0);
+        String name = string(fields, "name");
+        String description = string(fields, "description");
+        Task task;
+        switch (type) {
+            case EPIC:
+                task = new Epic(id, name, description);
+                break;
+            case SUBTASK:
+                if (!fields.containsKey("epicId")) {
+                    throw new IllegalArgumentException("Field epicId is required for a subtask.");
+                }
+                task = new Subtask(name, description, (int) number(fields, "epicId", 0));
+                task.setId(id);
+                break;
+            default:
+                task = new Task(id, name, description);
+        }
+        Object status = fields.get("status");
+        if (status != null) {
+            try {
+                task.setStatus(TaskStatus.valueOf(status.toString()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown status: " + status);
+            }
+        }
+        return task;
+    }
+
+    private static TaskType typeOf(Task task) {
+        if (task instanceof Epic) {
+            return TaskType.EPIC;
+        }
+        return task instanceof Subtask ? TaskType.SUBTASK : TaskType.TASK;
+    }
+
+    private static long number(Map<?, ?> fields, String name, long defaultValue) {
+        Object value = fields.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Long) || (Long) value < 0 || (Long) value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Field " + name + " must be a non-negative integer.");
+        }
+        return (Long) value;
+    }
+
+    private static String string(Map<?, ?> fields, String name) {
+        Object value = fields.get(name);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException("Field " + name + " must be a string.");
+        }
+        return (String) value;
+    }
+}
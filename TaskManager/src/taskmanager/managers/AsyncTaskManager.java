@@ -0,0 +1,219 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Асинхронный фасад: каждый вызов возвращает CompletableFuture и выполняется в виртуальном потоке.
+// Операции над одной задачей (по id) выполняются строго в порядке вызова, над разными - параллельно.
+// removeAll* и batch выполняются исключительно: ждут текущие операции, и новые ждут их.
+// Делегат - ConcurrentTaskManager: операции над разными id идут параллельно, а у остальных менеджеров
+// (FileBackedTaskManager, InMemoryTaskManager) чтение не защищено от одновременной записи.
+public class AsyncTaskManager implements AutoCloseable {
+    private final ConcurrentTaskManager delegate;
+    private final Executor executor;
+    private final boolean ownsExecutor;
+    // Последняя поставленная в очередь операция по каждому id.
+    private final ConcurrentHashMap<Integer, CompletableFuture<?>> tails = new ConcurrentHashMap<>();
+    private final ReadWriteLock exclusive = new ReentrantReadWriteLock();
+
+    public AsyncTaskManager(ConcurrentTaskManager delegate) {
+        this(delegate, Executors.newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    public AsyncTaskManager(ConcurrentTaskManager delegate, Executor executor) {
+        this(delegate, executor, false);
+    }
+
+    private AsyncTaskManager(ConcurrentTaskManager delegate, Executor executor, boolean ownsExecutor) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    public ConcurrentTaskManager getDelegate() {
+        return delegate;
+    }
+
+    public CompletableFuture<Task> getTask(int id) {
+        return keyed(id, () -> delegate.getTask(id));
+    }
+
+    public CompletableFuture<Task> getSubtask(int id) {
+        return keyed(id, () -> delegate.getSubtask(id));
+    }
+
+    public CompletableFuture<Task> getEpic(int id) {
+        return keyed(id, () -> delegate.getEpic(id));
+    }
+
+    public CompletableFuture<List<Task>> getTasks() {
+        return submit(delegate::getTasks, false);
+    }
+
+    public CompletableFuture<List<Task>> getEpics() {
+        return submit(delegate::getEpics, false);
+    }
+
+    public CompletableFuture<List<Task>> getSubtasks() {
+        return submit(delegate::getSubtasks, false);
+    }
+
+    public CompletableFuture<List<Subtask>> getSubtasksByEpic(int epicId) {
+        return keyed(epicId, () -> delegate.getSubtasksByEpic(epicId));
+    }
+
+    public CompletableFuture<List<Task>> getHistory() {
+        return submit(delegate::getHistory, false);
+    }
+
+    // Новая задача ещё без id, поэтому в очередь по id не встаёт.
+    public CompletableFuture<Integer> addNewTask(Task task) {
+        return submit(() -> delegate.addNewTask(task), false);
+    }
+
+    public CompletableFuture<Integer> addNewEpic(Epic epic) {
+        return submit(() -> delegate.addNewEpic(epic), false);
+    }
+
+    public CompletableFuture<Integer> addNewSubtask(Subtask subtask) {
+        return submit(() -> delegate.addNewSubtask(subtask), false);
+    }
+
+    public CompletableFuture<Void> updateTask(Task task) {
+        return keyed(task.getId(), () -> delegate.updateTask(task));
+    }
+
+    public CompletableFuture<Void> updateEpic(Epic epic) {
+        return keyed(epic.getId(), () -> delegate.updateEpic(epic));
+    }
+
+    public CompletableFuture<Void> updateSubtask(Subtask subtask) {
+        return keyed(subtask.getId(), () -> delegate.updateSubtask(subtask));
+    }
+
+    public CompletableFuture<Void> removeTask(int id) {
+        return keyed(id, () -> delegate.removeTask(id));
+    }
+
+    public CompletableFuture<Void> removeEpic(int id) {
+        return keyed(id, () -> delegate.removeEpic(id));
+    }
+
+    public CompletableFuture<Void> removeSubtask(int id) {
+        return keyed(id, () -> delegate.removeSubtask(id));
+    }
+
+    public CompletableFuture<Void> removeAllTasks() {
+        return submit(delegate::removeAllTasks, true);
+    }
+
+    public CompletableFuture<Void> removeAllEpics() {
+        return submit(delegate::removeAllEpics, true);
+    }
+
+    public CompletableFuture<Void> removeAllSubtasks() {
+        return submit(delegate::removeAllSubtasks, true);
+    }
+
+    public CompletableFuture<TaskPage> page(TaskType type, int afterId, int limit) {
+        return submit(() -> delegate.page(type, afterId, limit), false);
+    }
+
+    public CompletableFuture<Integer> countByStatus(TaskType type, TaskStatus status) {
+        return submit(() -> delegate.countByStatus(type, status), false);
+    }
+
+    public CompletableFuture<List<Task>> getByStatus(TaskType type, TaskStatus status) {
+        return submit(() -> delegate.getByStatus(type, status), false);
+    }
+
+    public CompletableFuture<List<Task>> searchAll(String query, int limit) {
+        return submit(() -> delegate.searchAll(query, limit), false);
+    }
+
+    public CompletableFuture<List<Task>> searchAny(String query, int limit) {
+        return submit(() -> delegate.searchAny(query, limit), false);
+    }
+
+    public CompletableFuture<TaskChanges> getChangesSince(long version) {
+        return submit(() -> delegate.getChangesSince(version), false);
+    }
+
+    public CompletableFuture<Void> batch(Consumer<TaskManager> operations) {
+        return submit(() -> delegate.batch(operations), true);
+    }
+
+    // Собственный executor закрывается после выполнения уже принятых операций.
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            ((ExecutorService) executor).close();
+        }
+    }
+
+    private CompletableFuture<Void> keyed(int id, Runnable operation) {
+        return keyed(id, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    // Операция встаёт в цепочку за предыдущей операцией с тем же id и стартует после её завершения,
+    // успешного или нет. Наружу отдаётся копия, чтобы отмена её вызывающим не разрывала цепочку.
+    private <T> CompletableFuture<T> keyed(int id, Supplier<T> operation) {
+        CompletableFuture<T> next = new CompletableFuture<>();
+        CompletableFuture<?> previous = tails.put(id, next);
+        if (previous == null) {
+            start(next, operation, false);
+        } else {
+            previous.whenComplete((result, error) -> start(next, operation, false));
+        }
+        next.whenComplete((result, error) -> tails.remove(id, next));
+        return next.copy();
+    }
+
+    private CompletableFuture<Void> submit(Runnable operation, boolean exclusively) {
+        return submit(() -> {
+            operation.run();
+            return null;
+        }, exclusively);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation, boolean exclusively) {
+        CompletableFuture<T> next = new CompletableFuture<>();
+        start(next, operation, exclusively);
+        return next.copy();
+    }
+
+    private <T> void start(CompletableFuture<T> future, Supplier<T> operation, boolean exclusively) {
+        try {
+            executor.execute(() -> run(future, operation, exclusively));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private <T> void run(CompletableFuture<T> future, Supplier<T> operation, boolean exclusively) {
+        Lock lock = exclusively ? exclusive.writeLock() : exclusive.readLock();
+        lock.lock();
+        try {
+            future.complete(operation.get());
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
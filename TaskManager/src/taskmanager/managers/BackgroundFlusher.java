@@ -0,0 +1,223 @@
+package taskmanager.managers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Фоновая запись с групповым коммитом: изменения копятся, пока поток пишет предыдущую порцию.
+// Всё состояние защищено монитором lock - тем же, что и мутаторы менеджера,
+// поэтому ожидание (lock.wait) отпускает менеджер и снимок можно собрать в фоне.
+class BackgroundFlusher implements AutoCloseable {
+    interface Sink {
+        void append(List<String> records) throws IOException;
+
+        ByteBuffer render();
+
+        void writeSnapshot(ByteBuffer content, boolean force) throws IOException;
+
+        void force() throws IOException;
+    }
+
+    private final String name;
+    private final Durability durability;
+    private final long fsyncIntervalNanos;
+    // Задаются в start() под монитором lock.
+    private Object lock;
+    private Sink sink;
+    private Thread thread;
+
+    private List<String> pending = new ArrayList<>();
+    private boolean snapshotDirty;
+    private boolean forceRequested;
+    private boolean closed;
+    private long submitted;
+    private long written;
+    private long durable;
+    private Exception failure;
+
+    BackgroundFlusher(String name, Durability durability, long fsyncIntervalMillis) {
+        this.name = name;
+        this.durability = durability;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+    }
+
+    // Владелец запускает поток после своего конструктора, держа монитор lock; повторный вызов ничего не делает.
+    void start(Object lock, Sink sink) {
+        if (thread != null) {
+            return;
+        }
+        this.lock = lock;
+        this.sink = sink;
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    long submit(String record) {
+        synchronized (lock) {
+            checkOpen();
+            pending.add(record);
+            lock.notifyAll();
+            return ++submitted;
+        }
+    }
+
+    long markDirty() {
+        synchronized (lock) {
+            checkOpen();
+            snapshotDirty = true;
+            lock.notifyAll();
+            return ++submitted;
+        }
+    }
+
+    // В режиме FSYNC_EACH вызывающий ждёт, пока его изменение не окажется на диске.
+    void awaitIfRequired(long sequence) {
+        if (durability == Durability.FSYNC_EACH) {
+            awaitDurable(sequence);
+        }
+    }
+
+    // Барьер: всё, что было отправлено до вызова, записано и сброшено на диск.
+    void flush() {
+        synchronized (lock) {
+            long target = submitted;
+            if (durable >= target) {
+                return;
+            }
+            forceRequested = true;
+            lock.notifyAll();
+            awaitDurable(target);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Interrupted while closing flusher", e);
+        }
+        synchronized (lock) {
+            checkFailure();
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        synchronized (lock) {
+            while (durable < sequence) {
+                checkFailure();
+                if (!thread.isAlive()) {
+                    throw new ManagerSaveException("Flusher is stopped", null);
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ManagerSaveException("Interrupted while waiting for flush", e);
+                }
+            }
+        }
+    }
+
+    private void checkOpen() {
+        checkFailure();
+        if (closed) {
+            throw new ManagerSaveException("Flusher is closed", null);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new ManagerSaveException("Background flush failed", failure);
+        }
+    }
+
+    private void run() {
+        long lastForce = System.nanoTime();
+        while (true) {
+            List<String> records;
+            ByteBuffer content = null;
+            boolean force;
+            long target;
+            synchronized (lock) {
+                while (!hasWork(lastForce)) {
+                    if (closed) {
+                        return;
+                    }
+                    try {
+                        lock.wait(waitMillis(lastForce));
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                records = pending;
+                pending = new ArrayList<>();
+                if (snapshotDirty) {
+                    snapshotDirty = false;
+                    content = sink.render();
+                }
+                target = submitted;
+                force = durability == Durability.FSYNC_EACH || forceRequested || closed || periodicForceDue(lastForce);
+                forceRequested = false;
+            }
+
+            try {
+                if (!records.isEmpty()) {
+                    sink.append(records);
+                }
+                if (content != null) {
+                    sink.writeSnapshot(content, force);
+                } else if (force) {
+                    sink.force();
+                }
+            } catch (IOException | RuntimeException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            if (force) {
+                lastForce = System.nanoTime();
+            }
+            synchronized (lock) {
+                written = target;
+                if (force) {
+                    durable = target;
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private boolean hasWork(long lastForce) {
+        if (!pending.isEmpty() || snapshotDirty) {
+            return true;
+        }
+        return written > durable && (forceRequested || closed || periodicForceDue(lastForce));
+    }
+
+    private boolean periodicForceDue(long lastForce) {
+        return durability == Durability.FSYNC_PERIODIC && System.nanoTime() - lastForce >= fsyncIntervalNanos;
+    }
+
+    private long waitMillis(long lastForce) {
+        if (durability != Durability.FSYNC_PERIODIC || written == durable) {
+            return 0;
+        }
+        long remaining = fsyncIntervalNanos - (System.nanoTime() - lastForce);
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining));
+    }
+}
@@ -0,0 +1,168 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+// Бинарный снимок. Заголовок: magic, версия, число задач, эпиков и подзадач.
+// Запись: id, ordinal TaskType, ordinal TaskStatus, epicId (-1 если нет),
+// name и description - длина в байтах (-1 для null) и UTF-8.
+final class BinarySnapshot {
+    static final int MAGIC = 0x544D5342;
+    static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 + 2 + 4 * 3;
+    private static final int RECORD_FIXED_SIZE = 4 + 1 + 1 + 4 + 4 + 4;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private BinarySnapshot() {
+    }
+
+    static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // читаем, пока не наберём 4 байта или не кончится файл
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    static ByteBuffer encode(Collection<? extends Task> tasks, Collection<? extends Task> epics,
+                             Collection<? extends Task> subtasks) {
+        int count = tasks.size() + epics.size() + subtasks.size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + count * (RECORD_FIXED_SIZE + 32));
+        buffer.putInt(MAGIC).putShort(VERSION)
+                .putInt(tasks.size()).putInt(epics.size()).putInt(subtasks.size());
+        for (Task task : tasks) {
+            buffer = put(buffer, task, TaskType.TASK, -1);
+        }
+        for (Task epic : epics) {
+            buffer = put(buffer, epic, TaskType.EPIC, -1);
+        }
+        for (Task subtask : subtasks) {
+            buffer = put(buffer, subtask, TaskType.SUBTASK, ((Subtask) subtask).getEpicId());
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static void read(Path path, Consumer<Task> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ManagerSaveException("Snapshot is too large to map: " + path, null);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                if (buffer.getInt() != MAGIC) {
+                    throw new ManagerSaveException("Not a binary snapshot: " + path, null);
+                }
+                short version = buffer.getShort();
+                if (version != VERSION) {
+                    throw new ManagerSaveException("Unsupported snapshot version " + version + ": " + path, null);
+                }
+                long count = (long) buffer.getInt() + buffer.getInt() + buffer.getInt();
+                StringDecoder strings = new StringDecoder(buffer);
+                for (long i = 0; i < count; i++) {
+                    consumer.accept(readRecord(buffer, strings));
+                }
+            } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+                throw new ManagerSaveException("Corrupted binary snapshot: " + path, e);
+            }
+        }
+    }
+
+    // Одна запись в формате снимка; используется и DiskBackedTaskManager для файла данных.
+    static Task readRecord(ByteBuffer buffer, StringDecoder strings) {
+        int id = buffer.getInt();
+        TaskType type = TYPES[buffer.get()];
+        TaskStatus status = STATUSES[buffer.get()];
+        int epicId = buffer.getInt();
+        String name = strings.next();
+        String description = strings.next();
+
+        Task task;
+        switch (type) {
+            case EPIC:
+                task = new Epic(id, name, description);
+                break;
+            case SUBTASK:
+                task = new Subtask(name, description, epicId);
+                task.setId(id);
+                break;
+            default:
+                task = new Task(id, name, description);
+        }
+        task.setStatus(status);
+        return task;
+    }
+
+    static TaskType typeOf(Task task) {
+        if (task instanceof Epic) {
+            return TaskType.EPIC;
+        }
+        return task instanceof Subtask ? TaskType.SUBTASK : TaskType.TASK;
+    }
+
+    static ByteBuffer put(ByteBuffer buffer, Task task, TaskType type, int epicId) {
+        byte[] name = task.getName() == null ? null : task.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] description = task.getDescription() == null
+                ? null : task.getDescription().getBytes(StandardCharsets.UTF_8);
+        int size = RECORD_FIXED_SIZE + (name == null ? 0 : name.length)
+                + (description == null ? 0 : description.length);
+        if (buffer.remaining() < size) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        buffer.putInt(task.getId())
+                .put((byte) type.ordinal())
+                .put((byte) task.getStatus().ordinal())
+                .putInt(epicId);
+        putString(buffer, name);
+        putString(buffer, description);
+        return buffer;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    // Из MappedByteBuffer байты строки копируются в переиспользуемый буфер, а не в новый массив на каждую строку.
+    static final class StringDecoder {
+        private final ByteBuffer buffer;
+        private byte[] scratch = new byte[256];
+
+        StringDecoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        String next() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
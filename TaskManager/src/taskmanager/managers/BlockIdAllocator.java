@@ -0,0 +1,145 @@
+package taskmanager.managers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// id блоками из файла с верхней границей уже выданных id, общего для процессов на одной машине.
+// Блок арендуется под блокировкой <file>.lock: граница читается, сдвигается на размер блока и записывается
+// через временный файл, fsync и атомарное переименование, так что после сбоя в файле старая или новая граница.
+// Внутри блока id выдаются без блокировок. Остаток блока при остановке процесса пропадает:
+// id уникальны между перезапусками и процессами, но идут с пропусками.
+public class BlockIdAllocator implements IdAllocator {
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    // Блокировку файла держит вся JVM, поэтому аллокаторы одного файла внутри процесса
+    // сначала договариваются между собой на общем мониторе.
+    private static final ConcurrentHashMap<Path, Object> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Path lockFile;
+    private final int blockSize;
+    // Текущий блок: старшие 32 бита - конец (не включая), младшие - следующий id. 0 - блока ещё нет.
+    private final AtomicLong block = new AtomicLong();
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final AtomicLong leases = new AtomicLong();
+
+    public BlockIdAllocator(Path file) {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockIdAllocator(Path file, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive.");
+        }
+        this.file = file;
+        this.lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public int nextId() {
+        while (true) {
+            long current = block.get();
+            int next = (int) current;
+            if (next < end(current)) {
+                if (block.compareAndSet(current, current + 1)) {
+                    return next;
+                }
+            } else {
+                lease(current);
+            }
+        }
+    }
+
+    // Следующий блок начнётся не ниже id + 1. Если id попал в ещё не выданную часть текущего блока
+    // (файл писали без этого аллокатора), остаток блока отбрасывается.
+    @Override
+    public void reserve(int id) {
+        reserved.accumulateAndGet(id, Math::max);
+        while (true) {
+            long current = block.get();
+            int end = end(current);
+            if (id < (int) current || id >= end) {
+                return;
+            }
+            if (block.compareAndSet(current, ((long) end << 32) | end)) {
+                return;
+            }
+        }
+    }
+
+    public long getLeaseCount() {
+        return leases.get();
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    private static int end(long block) {
+        return (int) (block >>> 32);
+    }
+
+    // Блок арендует один поток, остальные ждут его здесь и забирают id из нового блока.
+    private synchronized void lease(long exhausted) {
+        if (block.get() != exhausted) {
+            return;
+        }
+        int start = leaseBlock();
+        block.set(((long) (start + blockSize) << 32) | start);
+        leases.incrementAndGet();
+    }
+
+    private int leaseBlock() {
+        Object local = LOCAL_LOCKS.computeIfAbsent(lockFile.toAbsolutePath().normalize(), path -> new Object());
+        synchronized (local) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Блокировка между процессами снимается при закрытии канала.
+                channel.lock();
+                long start = Math.max(readHighWater(), reserved.get() + 1L);
+                long end = start + blockSize;
+                if (end > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Id space in " + file + " is exhausted.");
+                }
+                writeHighWater(end);
+                return (int) start;
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error leasing ids from " + file, e);
+            }
+        }
+    }
+
+    private long readHighWater() throws IOException {
+        if (!Files.exists(file)) {
+            return 1;
+        }
+        String value = Files.readString(file, StandardCharsets.UTF_8).trim();
+        try {
+            return Math.max(1, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            throw new ManagerSaveException("Invalid id high-water mark in " + file + ": " + value, e);
+        }
+    }
+
+    private void writeHighWater(long value) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap((value + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
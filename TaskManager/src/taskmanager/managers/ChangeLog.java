@@ -0,0 +1,193 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+// Журнал версий для getChangesSince. Записи разбиты на полосы по id, у каждой полосы свой монитор,
+// так что запись задач из разных полос не ждёт друг друга. Версия берётся из общего счётчика под монитором
+// своей полосы, поэтому внутри полосы записи лежат в параллельных массивах по возрастанию версии:
+// ответ - двоичный поиск и проход только по хвосту после запрошенной версии.
+// Чтение сначала берёт текущую версию, затем обходит полосы: запись, получившая версию не больше неё,
+// к этому моменту уже дописана (версия и запись - под одним монитором), а более новые пропускаются
+// и придут в следующем ответе.
+// Запись об изменении устаревает, когда задачу меняют снова или удаляют: при чтении она пропускается,
+// а при заполнении массивов вычищается. Надгробий (удалений) хранится примерно не больше maxTombstones
+// (поровну на полосу); клиенты с версией старше отброшенных получают полный список.
+// Счётчик версий не сохраняется и после перезапуска начинается заново, поэтому в старших битах версии -
+// случайная эпоха экземпляра: версия другого экземпляра (до перезапуска) не совпадает по эпохе
+// и получает полный список, а не часть изменений.
+final class ChangeLog {
+    static final int COUNTER_BITS = 40;
+    static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final int STRIPES = 16;
+
+    private final Predicate<Task> isStored;
+    private final long epoch = newEpoch();
+    private final AtomicLong version = new AtomicLong(epoch);
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // isStored - лежит ли в менеджере именно этот объект: заменённый или удалённый объект
+    // сохраняет свою версию, и запись о нём иначе не отличить от актуальной.
+    ChangeLog(Predicate<Task> isStored, int maxTombstones) {
+        this.isStored = isStored;
+        int perStripe = Math.max(1, (maxTombstones + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    void changed(Task task) {
+        stripeOf(task.getId()).changed(task);
+    }
+
+    void removed(int id) {
+        stripeOf(id).removed(id);
+    }
+
+    long version() {
+        return version.get();
+    }
+
+    // Случайная ненулевая эпоха в старших битах (знаковый бит не занят): 0 остаётся версией первого вызова.
+    static long newEpoch() {
+        return ThreadLocalRandom.current().nextLong(1, 1L << (63 - COUNTER_BITS)) << COUNTER_BITS;
+    }
+
+    static long counter(long version) {
+        return version & COUNTER_MASK;
+    }
+
+    // null, если отвечать нужно полным списком.
+    TaskChanges since(long since) {
+        long current = version.get();
+        if ((since & ~COUNTER_MASK) != epoch || since > current) {
+            return null;
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            if (!stripe.collect(since, current, entries)) {
+                return null;
+            }
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.version));
+        List<Task> changed = new ArrayList<>();
+        IntSet removed = new IntSet();
+        for (Entry entry : entries) {
+            if (entry.task == null) {
+                removed.add(entry.id);
+            } else {
+                changed.add(entry.task);
+            }
+        }
+        return new TaskChanges(current, false, changed, removed.toArray());
+    }
+
+    private Stripe stripeOf(int id) {
+        return stripes[id & (STRIPES - 1)];
+    }
+
+    private final class Stripe {
+        private final int maxTombstones;
+        private long[] versions = new long[16];
+        private Task[] tasks = new Task[16];
+        private int[] ids = new int[16];
+        private int size;
+        private int tombstones;
+        // Запрос с версией меньше horizon получает полный список: нужные надгробия уже отброшены.
+        private long horizon = epoch;
+
+        private Stripe(int maxTombstones) {
+            this.maxTombstones = maxTombstones;
+        }
+
+        synchronized void changed(Task task) {
+            long next = version.incrementAndGet();
+            task.setVersion(next);
+            append(next, task, task.getId());
+        }
+
+        synchronized void removed(int id) {
+            append(version.incrementAndGet(), null, id);
+            tombstones++;
+        }
+
+        // Живые записи с версией в (since, current]; false - нужные надгробия уже отброшены.
+        synchronized boolean collect(long since, long current, List<Entry> entries) {
+            if (since < horizon) {
+                return false;
+            }
+            int from = Arrays.binarySearch(versions, 0, size, since);
+            from = from < 0 ? -from - 1 : from + 1;
+            for (int i = from; i < size && versions[i] <= current; i++) {
+                if (tasks[i] == null || isLive(i)) {
+                    entries.add(new Entry(versions[i], tasks[i], ids[i]));
+                }
+            }
+            return true;
+        }
+
+        private boolean isLive(int index) {
+            Task task = tasks[index];
+            return task.getVersion() == versions[index] && isStored.test(task);
+        }
+
+        private void append(long entryVersion, Task task, int id) {
+            if (size == versions.length) {
+                compact();
+                // Уплотнение освободило меньше половины - растём, чтобы не уплотнять на каждой записи.
+                if (size > versions.length / 2) {
+                    int capacity = versions.length * 2;
+                    versions = Arrays.copyOf(versions, capacity);
+                    tasks = Arrays.copyOf(tasks, capacity);
+                    ids = Arrays.copyOf(ids, capacity);
+                }
+            }
+            versions[size] = entryVersion;
+            tasks[size] = task;
+            ids[size] = id;
+            size++;
+        }
+
+        private void compact() {
+            int dropped = Math.max(0, tombstones - maxTombstones);
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (tasks[i] == null) {
+                    if (dropped > 0) {
+                        dropped--;
+                        tombstones--;
+                        horizon = versions[i];
+                        continue;
+                    }
+                } else if (!isLive(i)) {
+                    continue;
+                }
+                versions[kept] = versions[i];
+                tasks[kept] = tasks[i];
+                ids[kept] = ids[i];
+                kept++;
+            }
+            Arrays.fill(tasks, kept, size, null);
+            size = kept;
+        }
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final Task task;
+        private final int id;
+
+        private Entry(long version, Task task, int id) {
+            this.version = version;
+            this.task = task;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// История для многопоточного менеджера. add() не берёт блокировок: просмотр получает
+// глобальный номер и кладётся в один из полосатых буферов (выбор по потоку).
+// Буферы сливаются в упорядоченную по номеру структуру под drainLock - при заполнении
+// (через tryLock, без ожидания) и перед getHistory()/remove().
+// Если буфер полон, а слив занят другим потоком, просмотр отбрасывается: история - не журнал.
+public class ConcurrentHistoryManager implements HistoryManager {
+    private static final int BUFFER_SIZE = 64;
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+    private final int capacity;
+    private final Buffer[] buffers;
+    private final int bufferMask;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    // Защищены drainLock.
+    private final TreeMap<Long, Task> order = new TreeMap<>();
+    private final Map<Integer, Long> sequenceById = new HashMap<>();
+
+    public ConcurrentHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ConcurrentHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive.");
+        }
+        this.capacity = capacity;
+        int count = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 2;
+        buffers = new Buffer[count];
+        for (int i = 0; i < count; i++) {
+            buffers[i] = new Buffer();
+        }
+        bufferMask = count - 1;
+    }
+
+    @Override
+    public void add(Task task) {
+        Entry entry = new Entry(task, sequence.getAndIncrement());
+        int index = System.identityHashCode(Thread.currentThread());
+        for (int attempt = 0; attempt <= bufferMask; attempt++) {
+            Buffer buffer = buffers[(index + attempt) & bufferMask];
+            int result = buffer.offer(entry);
+            if (result == Buffer.SUCCESS) {
+                if (buffer.size() >= BUFFER_SIZE / 2) {
+                    tryDrain();
+                }
+                return;
+            }
+            if (result == Buffer.FULL && tryDrain() && buffer.offer(entry) == Buffer.SUCCESS) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        drainLock.lock();
+        try {
+            drain();
+            Long key = sequenceById.remove(id);
+            if (key != null) {
+                order.remove(key);
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drain();
+            return new ArrayList<>(order.values());
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private boolean tryDrain() {
+        if (!drainLock.tryLock()) {
+            return false;
+        }
+        try {
+            drain();
+            return true;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void drain() {
+        for (Buffer buffer : buffers) {
+            buffer.drainTo(this);
+        }
+    }
+
+    // Просмотры из разных буферов приходят не по порядку: более старый номер не перекрывает новый.
+    private void apply(Entry entry) {
+        int id = entry.task.getId();
+        Long current = sequenceById.get(id);
+        if (current != null) {
+            if (current > entry.sequence) {
+                return;
+            }
+            order.remove(current);
+        }
+        sequenceById.put(id, entry.sequence);
+        order.put(entry.sequence, entry.task);
+        while (order.size() > capacity) {
+            Task oldest = order.pollFirstEntry().getValue();
+            sequenceById.remove(oldest.getId());
+        }
+    }
+
+    private static final class Entry {
+        private final Task task;
+        private final long sequence;
+
+        private Entry(Task task, long sequence) {
+            this.task = task;
+            this.sequence = sequence;
+        }
+    }
+
+    // Кольцевой буфер: много писателей (CAS по tail), один читатель под drainLock.
+    private static final class Buffer {
+        static final int SUCCESS = 0;
+        static final int FULL = 1;
+        static final int CONTENDED = 2;
+
+        private final AtomicReferenceArray<Entry> slots = new AtomicReferenceArray<>(BUFFER_SIZE);
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+
+        int offer(Entry entry) {
+            long current = tail.get();
+            if (current - head >= BUFFER_SIZE) {
+                return FULL;
+            }
+            if (!tail.compareAndSet(current, current + 1)) {
+                return CONTENDED;
+            }
+            slots.lazySet((int) current & BUFFER_MASK, entry);
+            return SUCCESS;
+        }
+
+        long size() {
+            return tail.get() - head;
+        }
+
+        void drainTo(ConcurrentHistoryManager history) {
+            long position = head;
+            long end = tail.get();
+            while (position < end) {
+                int index = (int) position & BUFFER_MASK;
+                Entry entry = slots.get(index);
+                if (entry == null) {
+                    // место занято, но запись ещё не опубликована - заберём при следующем сливе
+                    break;
+                }
+                slots.lazySet(index, null);
+                history.apply(entry);
+                position++;
+            }
+            head = position;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package taskmanager.managers;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+// IntMap для ConcurrentTaskManager без упаковки ключей. Ключи разбиты на сегменты по младшим битам
+// (идущие подряд id расходятся по сегментам по кругу); запись идёт под монитором сегмента,
+// чтение - без блокировок. Таблица сегмента - открытая адресация, как в IntHashMap, но удаление
+// оставляет ключ на месте с REMOVED вместо значения: сдвиг хвоста назад мог бы спрятать ключ
+// от параллельного читателя. Такие ячейки убираются при перестройке, новая таблица
+// публикуется целиком через volatile-ссылку. Значение пишется после ключа с release,
+// поэтому читатель, увидевший значение, видит и ключ.
+public class ConcurrentIntMap<V> implements IntMap<V> {
+    private static final int SEGMENTS = 32;
+    private static final int MIN_CAPACITY = 8;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final Object REMOVED = new Object();
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public ConcurrentIntMap() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Object value = segmentOf(key).table.find(key);
+        return value == REMOVED ? null : (V) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        return (V) segmentOf(key).put(key, value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        return (V) segmentOf(key).remove(key);
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    // Слабо согласованное представление, как у ConcurrentHashMap: итератор не бросает
+    // ConcurrentModificationException и может не увидеть изменения, сделанные во время обхода.
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentIntMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public void forEachKey(IntConsumer action) {
+        for (Segment segment : segments) {
+            Table table = segment.table;
+            for (int i = 0; i < table.values.length; i++) {
+                Object value = VALUES.getAcquire(table.values, i);
+                if (value != null && value != REMOVED) {
+                    action.accept(table.keys[i]);
+                }
+            }
+        }
+    }
+
+    private Segment segmentOf(int key) {
+        return segments[key & (SEGMENTS - 1)];
+    }
+
+    private static final class Segment {
+        private volatile Table table = new Table(MIN_CAPACITY);
+        private volatile int size;
+        // Занятые ячейки вместе с REMOVED: от них зависит длина пробирования.
+        private int used;
+
+        synchronized Object put(int key, Object value) {
+            Table current = table;
+            int index = current.slot(key);
+            Object existing;
+            while ((existing = current.values[index]) != null) {
+                if (current.keys[index] == key) {
+                    VALUES.setRelease(current.values, index, value);
+                    if (existing == REMOVED) {
+                        size++;
+                        return null;
+                    }
+                    return existing;
+                }
+                index = (index + 1) & current.mask;
+            }
+            if (used + 1 > current.threshold) {
+                rebuild(size + 1);
+                return put(key, value);
+            }
+            current.keys[index] = key;
+            VALUES.setRelease(current.values, index, value);
+            used++;
+            size++;
+            return null;
+        }
+
+        synchronized Object remove(int key) {
+            Table current = table;
+            int index = current.indexOf(key);
+            if (index < 0) {
+                return null;
+            }
+            Object previous = current.values[index];
+            if (previous == REMOVED) {
+                return null;
+            }
+            VALUES.setRelease(current.values, index, REMOVED);
+            size--;
+            return previous;
+        }
+
+        synchronized void clear() {
+            table = new Table(MIN_CAPACITY);
+            used = 0;
+            size = 0;
+        }
+
+        // Новая таблица по числу живых записей: если в основном были удаления, размер не растёт.
+        private void rebuild(int expectedSize) {
+            Table current = table;
+            int capacity = MIN_CAPACITY;
+            while (capacity * LOAD_FACTOR < expectedSize * 2) {
+                capacity <<= 1;
+            }
+            Table rebuilt = new Table(capacity);
+            for (int i = 0; i < current.values.length; i++) {
+                Object value = current.values[i];
+                if (value != null && value != REMOVED) {
+                    int index = rebuilt.slot(current.keys[i]);
+                    while (rebuilt.values[index] != null) {
+                        index = (index + 1) & rebuilt.mask;
+                    }
+                    rebuilt.keys[index] = current.keys[i];
+                    rebuilt.values[index] = value;
+                }
+            }
+            used = size;
+            table = rebuilt;
+        }
+    }
+
+    private static final class Table {
+        private final int[] keys;
+        private final Object[] values;
+        private final int mask;
+        private final int shift;
+        private final int threshold;
+
+        private Table(int capacity) {
+            keys = new int[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+            shift = 32 - Integer.numberOfTrailingZeros(capacity);
+            threshold = (int) (capacity * LOAD_FACTOR);
+        }
+
+        // Фибоначчиево хеширование, как в IntHashMap.
+        private int slot(int key) {
+            return (key * 0x9E3779B9) >>> shift;
+        }
+
+        // Значение или REMOVED; null - ключа нет.
+        private Object find(int key) {
+            int index = slot(key);
+            Object value;
+            while ((value = VALUES.getAcquire(values, index)) != null) {
+                if (keys[index] == key) {
+                    return value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private int indexOf(int key) {
+            int index = slot(key);
+            while (values[index] != null) {
+                if (keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private int segment;
+        private Table table = segments[0].table;
+        private int index = -1;
+        private Object next = advance();
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Object value = next;
+            next = advance();
+            return (V) value;
+        }
+
+        private Object advance() {
+            while (true) {
+                while (++index < table.values.length) {
+                    Object value = VALUES.getAcquire(table.values, index);
+                    if (value != null && value != REMOVED) {
+                        return value;
+                    }
+                }
+                if (++segment == SEGMENTS) {
+                    return null;
+                }
+                table = segments[segment].table;
+                index = -1;
+            }
+        }
+    }
+}
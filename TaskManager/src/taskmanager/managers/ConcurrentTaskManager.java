@@ -0,0 +1,290 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Потокобезопасный менеджер. Хранилища - ConcurrentIntMap, поэтому чтение идёт без блокировок.
+// Изменения эпика и его подзадач выполняются под блокировкой полосы (stripe) этого эпика,
+// так что операции над разными эпиками не мешают друг другу. Пакет и removeAll* берут все полосы.
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public ConcurrentTaskManager() {
+        this(Managers.getConcurrentHistory(), DEFAULT_STRIPES);
+    }
+
+    // Общий с другими процессами источник id, например BlockIdAllocator.
+    public ConcurrentTaskManager(IdAllocator idAllocator) {
+        this(Managers.getConcurrentHistory(), DEFAULT_STRIPES, idAllocator);
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager, int stripeCount) {
+        this(historyManager, stripeCount, new SequentialIdAllocator());
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager, int stripeCount, IdAllocator idAllocator) {
+        super(historyManager, idAllocator, ConcurrentIntMap::new);
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two.");
+        }
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = stripeCount - 1;
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        int stripe = ownStripe();
+        lock(stripe);
+        try {
+            return super.addNewTask(task);
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    @Override
+    public int addNewEpic(Epic epic) {
+        int stripe = ownStripe();
+        lock(stripe);
+        try {
+            return super.addNewEpic(epic);
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    @Override
+    public int addNewSubtask(Subtask subtask) {
+        int[] locked = lockEpics(subtask.getEpicId(), subtask.getLinkedEpicId());
+        try {
+            return super.addNewSubtask(subtask);
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        int stripe = stripeOf(task.getId());
+        lock(stripe);
+        try {
+            super.updateTask(task);
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        int stripe = stripeOf(epic.getId());
+        lock(stripe);
+        try {
+            super.updateEpic(epic);
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    // Блокируются все эпики, которых может коснуться перенос: старый и новый по epicId
+    // и те, к которым объекты подзадачи привязаны сейчас. После захвата проверяем,
+    // что никто не успел их поменять, иначе повторяем.
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        while (true) {
+            Subtask previous = findSubtask(subtask.getId());
+            int previousEpicId = previous == null ? 0 : previous.getEpicId();
+            int previousLinkedId = previous == null ? 0 : previous.getLinkedEpicId();
+            int linkedId = subtask.getLinkedEpicId();
+            int[] locked = lockEpics(previousEpicId, previousLinkedId, subtask.getEpicId(), linkedId);
+            try {
+                if (findSubtask(subtask.getId()) == previous
+                        && (previous == null || previous.getEpicId() == previousEpicId
+                        && previous.getLinkedEpicId() == previousLinkedId)
+                        && subtask.getLinkedEpicId() == linkedId) {
+                    super.updateSubtask(subtask);
+                    return;
+                }
+            } finally {
+                unlock(locked);
+            }
+        }
+    }
+
+    @Override
+    public void removeTask(int id) {
+        int stripe = stripeOf(id);
+        lock(stripe);
+        try {
+            super.removeTask(id);
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        int stripe = stripeOf(id);
+        lock(stripe);
+        try {
+            super.removeEpic(id);
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    @Override
+    public void removeSubtask(int id) {
+        while (true) {
+            Subtask subtask = findSubtask(id);
+            int epicId = subtask == null ? 0 : subtask.getEpicId();
+            int linkedId = subtask == null ? 0 : subtask.getLinkedEpicId();
+            int[] locked = lockEpics(epicId, linkedId);
+            try {
+                if (findSubtask(id) == subtask
+                        && (subtask == null || subtask.getEpicId() == epicId && subtask.getLinkedEpicId() == linkedId)) {
+                    super.removeSubtask(id);
+                    return;
+                }
+            } finally {
+                unlock(locked);
+            }
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        int stripe = stripeOf(epicId);
+        lock(stripe);
+        try {
+            return super.getSubtasksByEpic(epicId);
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    // Подзадачи эпика хранятся в обычной LinkedHashMap - живое представление небезопасно
+    // для других потоков, поэтому здесь отдаётся копия, снятая под блокировкой.
+    @Override
+    public Collection<Subtask> viewSubtasksByEpic(int epicId) {
+        return Collections.unmodifiableList(getSubtasksByEpic(epicId));
+    }
+
+    @Override
+    public void removeAllTasks() {
+        lockAll();
+        try {
+            super.removeAllTasks();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeAllEpics() {
+        lockAll();
+        try {
+            super.removeAllEpics();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeAllSubtasks() {
+        lockAll();
+        try {
+            super.removeAllSubtasks();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void batch(Consumer<TaskManager> operations) {
+        lockAll();
+        try {
+            super.batch(operations);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // Снимок строится по всему содержимому, пока писатели стоят.
+    @Override
+    protected void startSnapshots() {
+        lockAll();
+        try {
+            super.startSnapshots();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private int stripeOf(int id) {
+        return id & mask;
+    }
+
+    // Новые задачи и эпики ни с кем не конфликтуют по id; полоса нужна только для исключения
+    // с пакетом, поэтому берём её по потоку, чтобы не создавать одну горячую блокировку.
+    private int ownStripe() {
+        return System.identityHashCode(Thread.currentThread()) & mask;
+    }
+
+    private void lock(int stripe) {
+        stripes[stripe].lock();
+    }
+
+    private void unlock(int stripe) {
+        stripes[stripe].unlock();
+    }
+
+    // Полосы захватываются по возрастанию номера, чтобы не было взаимоблокировок.
+    private int[] lockEpics(int... epicIds) {
+        int[] indexes = new int[epicIds.length];
+        for (int i = 0; i < epicIds.length; i++) {
+            indexes[i] = stripeOf(epicIds[i]);
+        }
+        Arrays.sort(indexes);
+        int count = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            if (i == 0 || indexes[i] != indexes[i - 1]) {
+                indexes[count++] = indexes[i];
+            }
+        }
+        int[] locked = Arrays.copyOf(indexes, count);
+        for (int stripe : locked) {
+            lock(stripe);
+        }
+        return locked;
+    }
+
+    private void unlock(int[] locked) {
+        for (int i = locked.length - 1; i >= 0; i--) {
+            unlock(locked[i]);
+        }
+    }
+
+    private void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+}
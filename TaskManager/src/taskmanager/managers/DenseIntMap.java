@@ -0,0 +1,131 @@
+package taskmanager.managers;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+// Хранилище, индексированное самим id: подходит, когда id выдаются подряд (generateId()).
+// Занимает память по максимальному id, поэтому при редких id лучше IntHashMap.
+public class DenseIntMap<V> implements IntMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private Object[] values = new Object[MIN_CAPACITY];
+    private int size;
+    private int modCount;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return key >= 0 && key < values.length ? (V) values[key] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        if (key < 0) {
+            throw new IllegalArgumentException("Negative id: " + key);
+        }
+        if (key >= values.length) {
+            values = Arrays.copyOf(values, Math.max(key + 1, values.length + (values.length >> 1)));
+        }
+        V previous = (V) values[key];
+        values[key] = value;
+        if (previous == null) {
+            size++;
+            modCount++;
+        }
+        return previous;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        V previous = get(key);
+        if (previous != null) {
+            values[key] = null;
+            size--;
+            modCount++;
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iterator<>() {
+                    private final int expected = modCount;
+                    private int next = advance(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public V next() {
+                        if (modCount != expected) {
+                            throw new ConcurrentModificationException();
+                        }
+                        if (next >= values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        V value = (V) values[next];
+                        next = advance(next + 1);
+                        return value;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public void forEachKey(IntConsumer action) {
+        int expected = modCount;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                action.accept(i);
+                if (modCount != expected) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+    private int advance(int from) {
+        while (from < values.length && values[from] == null) {
+            from++;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,833 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// Хранилище больше кучи. В памяти только компактный индекс: смещение последней записи, тип и статус по id,
+// эпик подзадачи и подзадачи эпиков. Сами задачи читаются из файла данных по требованию
+// и держатся в ограниченном LRU-кэше.
+// Файл данных только дописывается: PUT (задача в формате BinarySnapshot), DELETE, CLEAR и BEGIN/COMMIT пакета.
+// При открытии просматриваются только заголовки записей - объекты задач не создаются.
+// В заголовке файла хранится следующий id на момент создания или сжатия: compact() выбрасывает
+// записи удалённых задач, и без этого их id после открытия выдавались бы повторно.
+// Статус эпика в файле не хранится: он считается по статусам подзадач из индекса.
+// Возвращаемые эпики не содержат подзадач (Epic.getSubtasks() пуст) - для этого есть getSubtasksByEpic.
+public class DiskBackedTaskManager implements TaskManager, AutoCloseable {
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    static final int MAGIC = 0x544D4442;
+    static final short VERSION = 2;
+
+    // магия, версия, следующий id
+    private static final int FILE_HEADER_SIZE = 4 + 2 + 4;
+    // длина записи, вид записи, затем id, тип, статус, epicId задачи
+    private static final int PUT_HEADER_SIZE = 4 + 1 + 4 + 1 + 1 + 4;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte CLEAR = 3;
+    private static final byte BEGIN = 4;
+    private static final byte COMMIT = 5;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final Path path;
+    private final HistoryManager historyManager;
+    private final Map<Integer, Task> cache;
+    private FileChannel channel;
+    private long end;
+
+    // Индекс по id. offsets[id] == 0 - задачи нет (в начале файла заголовок, записей там не бывает).
+    // meta[id] = 1 + type * STATUSES.length + status, parents[id] - эпик подзадачи.
+    private long[] offsets = new long[1024];
+    private byte[] meta = new byte[1024];
+    private int[] parents = new int[1024];
+    private final IntMap<EpicLinks> links = new IntHashMap<>();
+    private final int[][] counts = new int[TYPES.length][STATUSES.length];
+    private int nextId = 1;
+
+    private ByteBuffer readBuffer = ByteBuffer.allocate(512);
+    private BinarySnapshot.StringDecoder strings = new BinarySnapshot.StringDecoder(readBuffer);
+    private Undo undo;
+
+    public DiskBackedTaskManager(File file) {
+        this(file, DEFAULT_CACHE_SIZE, Managers.getDefaultHistory());
+    }
+
+    public DiskBackedTaskManager(File file, int cacheSize, HistoryManager historyManager) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+        this.path = file.toPath();
+        this.historyManager = historyManager;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                writeFully(fileHeader(), 0);
+                end = FILE_HEADER_SIZE;
+            } else {
+                scan();
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error opening data file " + path, e);
+        }
+    }
+
+    // Число задач, которые сейчас лежат в кэше.
+    public synchronized int getCachedCount() {
+        return cache.size();
+    }
+
+    public synchronized long getDataFileSize() {
+        return end;
+    }
+
+    public synchronized void flush() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error syncing data file " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error closing data file " + path, e);
+        }
+    }
+
+    // Переписывает файл данных, оставляя только последние версии живых задач.
+    public synchronized void compact() {
+        if (undo != null) {
+            throw new IllegalStateException("Cannot compact inside a batch.");
+        }
+        Path temp = Paths.get(path + ".compact");
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = fileHeader();
+            while (header.hasRemaining()) {
+                target.write(header);
+            }
+            long position = FILE_HEADER_SIZE;
+            long[] moved = new long[offsets.length];
+            for (int id = 1; id < nextId; id++) {
+                if (offsets[id] == 0) {
+                    continue;
+                }
+                ByteBuffer record = readRaw(offsets[id]);
+                moved[id] = position;
+                while (record.hasRemaining()) {
+                    position += target.write(record);
+                }
+            }
+            target.force(false);
+            channel.close();
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                offsets = moved;
+                end = position;
+            } finally {
+                // Канал открывается и после неудачного переноса: на прежний файл со старыми смещениями.
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error compacting data file " + path, e);
+        }
+    }
+
+    private ByteBuffer fileHeader() {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putShort(VERSION).putInt(nextId);
+        header.flip();
+        return header;
+    }
+
+    @Override
+    public synchronized Task getTask(int id) {
+        return touch(load(id, TaskType.TASK));
+    }
+
+    @Override
+    public synchronized Task getSubtask(int id) {
+        return touch(load(id, TaskType.SUBTASK));
+    }
+
+    @Override
+    public synchronized Task getEpic(int id) {
+        return touch(load(id, TaskType.EPIC));
+    }
+
+    private Task touch(Task task) {
+        if (task != null) {
+            historyManager.add(task);
+        }
+        return task;
+    }
+
+    @Override
+    public synchronized List<Task> getTasks() {
+        return new ArrayList<>(view(TaskType.TASK));
+    }
+
+    @Override
+    public synchronized List<Task> getEpics() {
+        return new ArrayList<>(view(TaskType.EPIC));
+    }
+
+    @Override
+    public synchronized List<Task> getSubtasks() {
+        return new ArrayList<>(view(TaskType.SUBTASK));
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasksByEpic(int epicId) {
+        EpicLinks epic = links.get(epicId);
+        List<Subtask> result = new ArrayList<>();
+        if (epic != null) {
+            for (int id : epic.subtasks.toArray()) {
+                result.add((Subtask) hydrate(id, false));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public synchronized int addNewTask(Task task) {
+        if (typeOf(task.getId()) == TaskType.TASK) {
+            throw new IllegalArgumentException("Task with this ID already exists.");
+        }
+        task.setId(nextId);
+        put(task, TaskType.TASK, -1);
+        return task.getId();
+    }
+
+    @Override
+    public synchronized int addNewEpic(Epic epic) {
+        epic.setId(nextId);
+        put(epic, TaskType.EPIC, -1);
+        return epic.getId();
+    }
+
+    @Override
+    public synchronized int addNewSubtask(Subtask subtask) {
+        if (subtask.getId() == subtask.getEpicId()) {
+            throw new IllegalArgumentException("Epic cannot be its own subtask.");
+        }
+        if (typeOf(subtask.getId()) == TaskType.SUBTASK) {
+            throw new IllegalArgumentException("Subtask with this ID already exists.");
+        }
+        if (typeOf(subtask.getEpicId()) != TaskType.EPIC) {
+            throw new IllegalArgumentException("Epic with ID " + subtask.getEpicId() + " not found.");
+        }
+        subtask.setId(nextId);
+        put(subtask, TaskType.SUBTASK, subtask.getEpicId());
+        return subtask.getId();
+    }
+
+    @Override
+    public synchronized void updateTask(Task task) {
+        Task previous = load(task.getId(), TaskType.TASK);
+        if (previous == null) {
+            throw new IllegalArgumentException("Task not found.");
+        }
+        historyManager.add(new Task(previous));
+        put(task, TaskType.TASK, -1);
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic epic) {
+        put(epic, TaskType.EPIC, -1);
+    }
+
+    @Override
+    public synchronized void updateSubtask(Subtask subtask) {
+        if (typeOf(subtask.getId()) != TaskType.SUBTASK) {
+            throw new IllegalArgumentException("Subtask not found.");
+        }
+        if (typeOf(subtask.getEpicId()) != TaskType.EPIC) {
+            throw new IllegalArgumentException("Epic with ID " + subtask.getEpicId() + " not found.");
+        }
+        put(subtask, TaskType.SUBTASK, subtask.getEpicId());
+    }
+
+    @Override
+    public synchronized void removeTask(int id) {
+        if (typeOf(id) == TaskType.TASK) {
+            delete(id);
+        }
+    }
+
+    @Override
+    public synchronized void removeEpic(int id) {
+        if (typeOf(id) != TaskType.EPIC) {
+            return;
+        }
+        EpicLinks epic = links.get(id);
+        if (epic != null) {
+            for (int subtaskId : epic.subtasks.toArray()) {
+                delete(subtaskId);
+            }
+        }
+        delete(id);
+    }
+
+    @Override
+    public synchronized void removeSubtask(int id) {
+        if (typeOf(id) == TaskType.SUBTASK) {
+            delete(id);
+        }
+    }
+
+    @Override
+    public synchronized void removeAllTasks() {
+        clear(TaskType.TASK);
+    }
+
+    @Override
+    public synchronized void removeAllEpics() {
+        clear(TaskType.SUBTASK);
+        clear(TaskType.EPIC);
+    }
+
+    @Override
+    public synchronized void removeAllSubtasks() {
+        clear(TaskType.SUBTASK);
+    }
+
+    // Пакет пишется между BEGIN и COMMIT: группа без COMMIT при открытии отбрасывается.
+    // При ошибке файл обрезается до начала пакета, индекс восстанавливается из журнала отката.
+    @Override
+    public synchronized void batch(Consumer<TaskManager> operations) {
+        if (undo != null) {
+            operations.accept(this);
+            return;
+        }
+        undo = new Undo(end, nextId, counts);
+        try {
+            append(BEGIN, null);
+            operations.accept(this);
+            append(COMMIT, null);
+            undo = null;
+        } catch (RuntimeException | Error e) {
+            Undo current = undo;
+            undo = null;
+            rollback(current);
+            throw e;
+        }
+    }
+
+    // Живое представление: задачи читаются с диска при обходе и в кэш не попадают.
+    @Override
+    public synchronized Collection<Task> view(TaskType type) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                return new TypeIterator(type);
+            }
+
+            @Override
+            public int size() {
+                synchronized (DiskBackedTaskManager.this) {
+                    int size = 0;
+                    for (int count : counts[type.ordinal()]) {
+                        size += count;
+                    }
+                    return size;
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized TaskPage page(TaskType type, int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive.");
+        }
+        List<Task> items = new ArrayList<>();
+        int id = Math.max(afterId, 0) + 1;
+        for (; id < nextId && items.size() < limit; id++) {
+            if (typeOf(id) == type) {
+                items.add(hydrate(id, false));
+            }
+        }
+        boolean hasMore = false;
+        for (; id < nextId && !hasMore; id++) {
+            hasMore = typeOf(id) == type;
+        }
+        int next = items.isEmpty() ? afterId : items.get(items.size() - 1).getId();
+        return new TaskPage(items, next, hasMore);
+    }
+
+    @Override
+    public synchronized int countByStatus(TaskType type, TaskStatus status) {
+        return counts[type.ordinal()][status.ordinal()];
+    }
+
+    @Override
+    public synchronized boolean contains(TaskType type, int id) {
+        return typeOf(id) == type;
+    }
+
+    @Override
+    public synchronized List<Task> getByStatus(TaskType type, TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        byte wanted = encode(type, status);
+        for (int id = 1; id < nextId; id++) {
+            if (meta[id] == wanted) {
+                result.add(hydrate(id, false));
+            }
+        }
+        return result;
+    }
+
+    private TaskType typeOf(int id) {
+        if (id <= 0 || id >= meta.length || meta[id] == 0) {
+            return null;
+        }
+        return TYPES[(meta[id] - 1) / STATUSES.length];
+    }
+
+    private TaskStatus statusOf(int id) {
+        return STATUSES[(meta[id] - 1) % STATUSES.length];
+    }
+
+    private static byte encode(TaskType type, TaskStatus status) {
+        return (byte) (1 + type.ordinal() * STATUSES.length + status.ordinal());
+    }
+
+    private Task load(int id, TaskType type) {
+        return typeOf(id) == type ? hydrate(id, true) : null;
+    }
+
+    private Task hydrate(int id, boolean cached) {
+        Task task = cache.get(id);
+        if (task != null) {
+            return task;
+        }
+        try {
+            readRecord(offsets[id]);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error reading task " + id + " from " + path, e);
+        }
+        readBuffer.position(5);
+        task = BinarySnapshot.readRecord(readBuffer, strings);
+        if (task instanceof Epic) {
+            task.setStatus(statusOf(id));
+        }
+        if (cached) {
+            cache.put(id, task);
+        }
+        return task;
+    }
+
+    // Читает запись по смещению в readBuffer (от длины до конца записи).
+    private void readRecord(long offset) throws IOException {
+        readBuffer.clear();
+        readFully(readBuffer, offset, 4);
+        int length = readBuffer.getInt(0);
+        if (length + 4 > readBuffer.capacity()) {
+            readBuffer = ByteBuffer.allocate(Math.max(length + 4, readBuffer.capacity() * 2));
+            strings = new BinarySnapshot.StringDecoder(readBuffer);
+            readBuffer.putInt(length);
+        }
+        if (readBuffer.position() < length + 4) {
+            readBuffer.limit(length + 4);
+            readFully(readBuffer, offset + readBuffer.position(), length + 4 - readBuffer.position());
+        }
+        readBuffer.limit(length + 4);
+    }
+
+    private ByteBuffer readRaw(long offset) throws IOException {
+        readRecord(offset);
+        readBuffer.position(0);
+        return readBuffer;
+    }
+
+    // Дочитывает в buffer не меньше required байт, начиная с позиции файла position.
+    private void readFully(ByteBuffer buffer, long position, int required) throws IOException {
+        int start = buffer.position();
+        while (buffer.position() - start < required) {
+            int read = channel.read(buffer, position + buffer.position() - start);
+            if (read < 0) {
+                throw new ManagerSaveException("Unexpected end of data file " + path, null);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private long append(byte kind, ByteBuffer payload) {
+        int length = 1 + (payload == null ? 0 : payload.remaining());
+        ByteBuffer record = ByteBuffer.allocate(4 + length).putInt(length).put(kind);
+        if (payload != null) {
+            record.put(payload);
+        }
+        record.flip();
+        long offset = end;
+        try {
+            writeFully(record, offset);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error writing data file " + path, e);
+        }
+        end += record.capacity();
+        return offset;
+    }
+
+    private void put(Task task, TaskType type, int epicId) {
+        ByteBuffer payload = BinarySnapshot.put(ByteBuffer.allocate(64), task, type, epicId);
+        payload.flip();
+        long offset = append(PUT, payload);
+        applyPut(task.getId(), type, task.getStatus(), epicId, offset);
+        cache.remove(task.getId());
+        if (type == TaskType.EPIC) {
+            task.setStatus(statusOf(task.getId()));
+        }
+    }
+
+    private void delete(int id) {
+        append(DELETE, ByteBuffer.allocate(4).putInt(0, id));
+        applyDelete(id);
+        cache.remove(id);
+        historyManager.remove(id);
+    }
+
+    private void clear(TaskType type) {
+        append(CLEAR, ByteBuffer.allocate(1).put(0, (byte) type.ordinal()));
+        applyClear(type);
+        cache.values().removeIf(task -> BinarySnapshot.typeOf(task) == type);
+    }
+
+    private void applyPut(int id, TaskType type, TaskStatus status, int epicId, long offset) {
+        ensureCapacity(id);
+        if (meta[id] != 0) {
+            unlink(id);
+        } else {
+            remember(id);
+        }
+        offsets[id] = offset;
+        if (type == TaskType.EPIC) {
+            EpicLinks epic = links.get(id);
+            status = epic == null ? TaskStatus.NEW : epic.status();
+        }
+        meta[id] = encode(type, status);
+        counts[type.ordinal()][status.ordinal()]++;
+        if (type == TaskType.SUBTASK) {
+            parents[id] = epicId;
+            EpicLinks epic = links.get(epicId);
+            if (epic == null) {
+                epic = new EpicLinks();
+                links.put(epicId, epic);
+            }
+            rememberLinks(epicId, epic);
+            epic.add(id, status);
+            refreshEpic(epicId);
+        }
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    private void applyDelete(int id) {
+        if (id <= 0 || id >= meta.length || meta[id] == 0) {
+            return;
+        }
+        TaskType type = typeOf(id);
+        unlink(id);
+        offsets[id] = 0;
+        meta[id] = 0;
+        parents[id] = 0;
+        if (type == TaskType.EPIC) {
+            EpicLinks epic = links.get(id);
+            if (epic != null) {
+                rememberLinks(id, epic);
+                links.remove(id);
+            }
+        }
+    }
+
+    private void applyClear(TaskType type) {
+        for (int id = 1; id < nextId && id < meta.length; id++) {
+            if (typeOf(id) == type) {
+                applyDelete(id);
+            }
+        }
+    }
+
+    // Убирает текущую версию задачи из счётчиков и из подзадач её эпика.
+    private void unlink(int id) {
+        remember(id);
+        TaskType type = typeOf(id);
+        counts[type.ordinal()][statusOf(id).ordinal()]--;
+        if (type == TaskType.SUBTASK) {
+            int epicId = parents[id];
+            EpicLinks epic = links.get(epicId);
+            if (epic != null) {
+                rememberLinks(epicId, epic);
+                epic.remove(id, statusOf(id));
+                refreshEpic(epicId);
+            }
+        }
+    }
+
+    private void refreshEpic(int epicId) {
+        if (typeOf(epicId) != TaskType.EPIC) {
+            return;
+        }
+        EpicLinks epic = links.get(epicId);
+        TaskStatus status = epic == null ? TaskStatus.NEW : epic.status();
+        TaskStatus previous = statusOf(epicId);
+        if (status != previous) {
+            remember(epicId);
+            counts[TaskType.EPIC.ordinal()][previous.ordinal()]--;
+            counts[TaskType.EPIC.ordinal()][status.ordinal()]++;
+            meta[epicId] = encode(TaskType.EPIC, status);
+            Task cached = cache.get(epicId);
+            if (cached != null) {
+                cached.setStatus(status);
+            }
+        }
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= offsets.length) {
+            int capacity = Math.max(id + 1, offsets.length + (offsets.length >> 1));
+            offsets = Arrays.copyOf(offsets, capacity);
+            meta = Arrays.copyOf(meta, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+        }
+    }
+
+    private void remember(int id) {
+        if (undo != null && !undo.entries.containsKey(id)) {
+            boolean known = id < offsets.length;
+            undo.entries.put(id, new long[]{known ? offsets[id] : 0, known ? meta[id] : 0, known ? parents[id] : 0});
+        }
+    }
+
+    private void rememberLinks(int epicId, EpicLinks epic) {
+        if (undo != null && !undo.links.containsKey(epicId)) {
+            undo.links.put(epicId, epic == null ? null : epic.copy());
+        }
+    }
+
+    private void rollback(Undo state) {
+        try {
+            channel.truncate(state.end);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error rolling back data file " + path, e);
+        }
+        end = state.end;
+        nextId = state.nextId;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = state.counts[i].clone();
+        }
+        state.entries.forEach((id, entry) -> {
+            offsets[id] = entry[0];
+            meta[id] = (byte) entry[1];
+            parents[id] = (int) entry[2];
+        });
+        state.links.forEach((epicId, epic) -> {
+            if (epic == null) {
+                links.remove(epicId);
+            } else {
+                links.put(epicId, epic);
+            }
+        });
+        cache.clear();
+    }
+
+    // Просмотр файла при открытии: применяются только заголовки записей.
+    // Недописанная последняя запись и пакет без COMMIT в конце файла отрезаются.
+    private void scan() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        readFully(header, 0, FILE_HEADER_SIZE);
+        if (header.getInt(0) != MAGIC) {
+            throw new ManagerSaveException("Not a task data file: " + path, null);
+        }
+        if (header.getShort(4) != VERSION) {
+            throw new ManagerSaveException("Unsupported data file version " + header.getShort(4) + ": " + path, null);
+        }
+        nextId = Math.max(header.getInt(6), 1);
+        long size = channel.size();
+        SequentialReader in = new SequentialReader(size);
+        long position = FILE_HEADER_SIZE;
+        long groupStart = -1;
+        while (in.available(position, 4)) {
+            int length = in.getInt(position);
+            if (length <= 0 || position + 4 + length > size || !in.available(position, Math.min(4 + length, PUT_HEADER_SIZE))) {
+                break;
+            }
+            byte kind = in.get(position + 4);
+            switch (kind) {
+                case PUT:
+                    applyPut(in.getInt(position + 5), TYPES[in.get(position + 9)], STATUSES[in.get(position + 10)],
+                            in.getInt(position + 11), position);
+                    break;
+                case DELETE:
+                    applyDelete(in.getInt(position + 5));
+                    break;
+                case CLEAR:
+                    applyClear(TYPES[in.get(position + 5)]);
+                    break;
+                case BEGIN:
+                    groupStart = position;
+                    break;
+                case COMMIT:
+                    groupStart = -1;
+                    break;
+                default:
+                    throw new ManagerSaveException("Corrupted data file " + path + " at offset " + position, null);
+            }
+            position += 4 + length;
+        }
+        if (groupStart >= 0) {
+            channel.truncate(groupStart);
+            resetIndex();
+            scan();
+            return;
+        }
+        if (position < size) {
+            channel.truncate(position);
+        }
+        end = position;
+    }
+
+    private void resetIndex() {
+        Arrays.fill(offsets, 0);
+        Arrays.fill(meta, (byte) 0);
+        Arrays.fill(parents, 0);
+        links.clear();
+        for (int[] row : counts) {
+            Arrays.fill(row, 0);
+        }
+        nextId = 1;
+    }
+
+    // Последовательное чтение файла большими блоками для scan().
+    private final class SequentialReader {
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        private final long size;
+        private long bufferStart;
+
+        private SequentialReader(long size) {
+            this.size = size;
+            buffer.limit(0);
+        }
+
+        private boolean available(long position, int count) throws IOException {
+            if (position + count > size) {
+                return false;
+            }
+            if (position < bufferStart || position + count > bufferStart + buffer.limit()) {
+                buffer.clear();
+                bufferStart = position;
+                while (buffer.hasRemaining() && bufferStart + buffer.position() < size) {
+                    channel.read(buffer, bufferStart + buffer.position());
+                }
+                buffer.flip();
+            }
+            return true;
+        }
+
+        private int getInt(long position) {
+            return buffer.getInt((int) (position - bufferStart));
+        }
+
+        private byte get(long position) {
+            return buffer.get((int) (position - bufferStart));
+        }
+    }
+
+    private final class TypeIterator implements Iterator<Task> {
+        private final TaskType type;
+        private int next;
+
+        private TypeIterator(TaskType type) {
+            this.type = type;
+            this.next = advance(1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next > 0;
+        }
+
+        @Override
+        public Task next() {
+            synchronized (DiskBackedTaskManager.this) {
+                if (next <= 0) {
+                    throw new NoSuchElementException();
+                }
+                Task task = typeOf(next) == type ? hydrate(next, false) : null;
+                next = advance(next + 1);
+                if (task == null) {
+                    return next();
+                }
+                return task;
+            }
+        }
+
+        private int advance(int from) {
+            synchronized (DiskBackedTaskManager.this) {
+                for (int id = from; id < nextId; id++) {
+                    if (typeOf(id) == type) {
+                        return id;
+                    }
+                }
+                return 0;
+            }
+        }
+    }
+
+    // Журнал отката пакета: прежние значения индекса для затронутых id и эпиков.
+    private static final class Undo {
+        private final long end;
+        private final int nextId;
+        private final int[][] counts;
+        private final Map<Integer, long[]> entries = new LinkedHashMap<>();
+        private final Map<Integer, EpicLinks> links = new LinkedHashMap<>();
+
+        private Undo(long end, int nextId, int[][] counts) {
+            this.end = end;
+            this.nextId = nextId;
+            this.counts = new int[counts.length][];
+            for (int i = 0; i < counts.length; i++) {
+                this.counts[i] = counts[i].clone();
+            }
+        }
+    }
+}
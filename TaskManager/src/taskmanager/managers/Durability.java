@@ -0,0 +1,7 @@
+package taskmanager.managers;
+
+public enum Durability {
+    FSYNC_EACH,
+    FSYNC_PERIODIC,
+    OS_BUFFERED
+}
@@ -0,0 +1,44 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.TaskStatus;
+
+// Подзадачи эпика и их число в каждом статусе - для статуса эпика без чтения самих подзадач.
+// Используется хранилищами, где эпик не держит ссылки на объекты Subtask.
+final class EpicLinks {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    final IntSet subtasks = new IntSet();
+    private final int[] statusCounts = new int[STATUSES.length];
+
+    void add(int id, TaskStatus status) {
+        if (subtasks.add(id)) {
+            statusCounts[status.ordinal()]++;
+        }
+    }
+
+    void remove(int id, TaskStatus status) {
+        if (subtasks.remove(id)) {
+            statusCounts[status.ordinal()]--;
+        }
+    }
+
+    TaskStatus status() {
+        int total = subtasks.size();
+        if (total == statusCounts[TaskStatus.NEW.ordinal()]) {
+            return TaskStatus.NEW;
+        }
+        if (total == statusCounts[TaskStatus.DONE.ordinal()]) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    EpicLinks copy() {
+        EpicLinks copy = new EpicLinks();
+        for (int i = 0; i < subtasks.size(); i++) {
+            copy.subtasks.add(subtasks.get(i));
+        }
+        System.arraycopy(statusCounts, 0, copy.statusCounts, 0, statusCounts.length);
+        return copy;
+    }
+}
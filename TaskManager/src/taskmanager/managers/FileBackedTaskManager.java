@@ -1,117 +1,545 @@
 package taskmanager.managers;
 
 import taskmanager.tasks.*;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
+    private static final String HEADER = "id,type,name,status,description,epic";
+
     private final File file;
+    private final PersistenceMode mode;
+    private final SnapshotFormat format;
+    private final TaskJournal journal;
+    private final BackgroundFlusher flusher;
+    private List<String> batchRecords;
+    // Номер последней записи пакета у BackgroundFlusher: её ждут в afterBatch().
+    private long batchSequence;
+    private List<String> replayBatch;
+    // Смещение BEGIN открытой при проигрывании группы.
+    private long replayBatchOffset;
+    private volatile PersistenceListener listener;
+    // Фоновое сжатие журнала (только JOURNAL): текущий файл журнала запечатывается в segment,
+    // отдельный поток проигрывает снимок и segment в пустом менеджере и пишет новый снимок.
+    private final long compactionBytes;
+    private final long compactionRecords;
+    private final Object compactionLock = new Object();
+    private Thread compactor;
+    private Exception compactionFailure;
+    private volatile long compactionCount;
+    private boolean journalGroupOpen;
 
     public FileBackedTaskManager(File file) {
+        this(file, PersistenceMode.SNAPSHOT);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode mode) {
+        this(file, PersistenceOptions.synchronous(mode));
+    }
+
+    public FileBackedTaskManager(File file, PersistenceOptions options) {
+        this(file, options, Managers.getDefaultHistory());
+    }
+
+    FileBackedTaskManager(File file, PersistenceOptions options, HistoryManager historyManager) {
+        this(file, options, historyManager, IntHashMap::new);
+    }
+
+    // Общая история для нескольких менеджеров и своё хранилище (шарды ShardedTaskManager).
+    FileBackedTaskManager(File file, PersistenceOptions options, HistoryManager historyManager,
+                          IntMap.Factory storeFactory) {
+        super(historyManager, options.getIdAllocator() != null
+                ? options.getIdAllocator() : new SequentialIdAllocator(), storeFactory);
         this.file = file;
+        this.mode = options.getMode();
+        this.format = options.getFormat();
+        this.journal = new TaskJournal(journalPath(file));
+        this.flusher = options.isBackground()
+                ? new BackgroundFlusher("task-flusher-" + file.getName(),
+                        options.getDurability(), options.getFsyncIntervalMillis())
+                : null;
+        boolean compacting = options.isCompacting();
+        this.compactionBytes = compacting && options.getCompactionBytes() > 0
+                ? options.getCompactionBytes() : Long.MAX_VALUE;
+        this.compactionRecords = compacting && options.getCompactionRecords() > 0
+                ? options.getCompactionRecords() : Long.MAX_VALUE;
     }
 
     @Override
-    public int addNewTask(Task task) {
+    public synchronized int addNewTask(Task task) {
         int id = super.addNewTask(task);
-        save();
+        onPut(task);
         return id;
     }
 
     @Override
-    public int addNewEpic(Epic epic) {
+    public synchronized int addNewEpic(Epic epic) {
         int id = super.addNewEpic(epic);
-        save();
+        onPut(epic);
         return id;
     }
 
     @Override
-    public int addNewSubtask(Subtask subtask) {
+    public synchronized int addNewSubtask(Subtask subtask) {
         int id = super.addNewSubtask(subtask);
-        save();
+        onPut(subtask);
         return id;
     }
 
     @Override
-    public void updateTask(Task task) {
+    public synchronized void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        onPut(task);
     }
 
     @Override
-    public void updateEpic(Epic epic) {
+    public synchronized void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        onPut(epic);
     }
 
     @Override
-    public void updateSubtask(Subtask subtask) {
+    public synchronized void updateSubtask(Subtask subtask) {
         super.updateSubtask(subtask);
-        save();
+        onPut(subtask);
     }
 
     @Override
-    public void removeTask(int id) {
+    public synchronized void removeTask(int id) {
         super.removeTask(id);
-        save();
+        onRemove(TaskType.TASK, id);
     }
 
     @Override
-    public void removeEpic(int id) {
+    public synchronized void removeEpic(int id) {
         super.removeEpic(id);
-        save();
+        onRemove(TaskType.EPIC, id);
     }
 
     @Override
-    public void removeSubtask(int id) {
+    public synchronized void removeSubtask(int id) {
         super.removeSubtask(id);
+        onRemove(TaskType.SUBTASK, id);
+    }
+
+    @Override
+    public synchronized void removeAllTasks() {
+        super.removeAllTasks();
+        onClear(TaskType.TASK);
+    }
+
+    @Override
+    public synchronized void removeAllEpics() {
+        super.removeAllEpics();
+        onClear(TaskType.EPIC);
+    }
+
+    @Override
+    public synchronized void removeAllSubtasks() {
+        super.removeAllSubtasks();
+        onClear(TaskType.SUBTASK);
+    }
+
+    @Override
+    public synchronized void batch(Consumer<TaskManager> operations) {
+        super.batch(operations);
+    }
+
+    @Override
+    protected synchronized void startSnapshots() {
+        super.startSnapshots();
+    }
+
+    @Override
+    protected void beginBatch() {
+        batchRecords = new ArrayList<>();
+    }
+
+    // Весь пакет сохраняется одним снимком или одной группой BEGIN ... COMMIT в журнале:
+    // группа без COMMIT (сбой посреди записи) при восстановлении отбрасывается.
+    @Override
+    protected void commitBatch() {
+        List<String> records = batchRecords;
+        batchRecords = null;
+        if (mode == PersistenceMode.SNAPSHOT) {
+            if (flusher == null) {
+                save();
+            } else {
+                batchSequence = flusher().markDirty();
+            }
+        } else if (!records.isEmpty()) {
+            records.add(0, "BEGIN");
+            records.add("COMMIT");
+            if (flusher == null) {
+                appendToJournal(records);
+            } else {
+                for (String record : records) {
+                    batchSequence = flusher().submit(record);
+                }
+            }
+        }
+    }
+
+    // Ожидание FSYNC_EACH отпускает монитор менеджера, поэтому оно идёт после закрытия пакета:
+    // иначе другой поток принял бы открытый пакет за вложенный и писал бы в него без отката.
+    @Override
+    protected void afterBatch() {
+        long sequence = batchSequence;
+        batchSequence = 0;
+        if (sequence > 0) {
+            flusher().awaitIfRequired(sequence);
+        }
+    }
+
+    @Override
+    protected void abortBatch() {
+        batchRecords = null;
+        batchSequence = 0;
+    }
+
+    // Поток записи запускается при первом обращении, а не в конструкторе: до конца конструирования
+    // (в том числе наследника) менеджер не должен быть виден другому потоку.
+    private synchronized BackgroundFlusher flusher() {
+        flusher.start(this, new FileSink());
+        return flusher;
+    }
+
+    public void setPersistenceListener(PersistenceListener listener) {
+        this.listener = listener;
+    }
+
+    public long getJournalSize() {
+        return journal.size();
+    }
+
+    public long getCompactionCount() {
+        return compactionCount;
+    }
+
+    // Сворачивает журнал в снимок: после этого загрузка читает только основной файл.
+    public synchronized void checkpoint() {
+        if (flusher != null) {
+            flusher().flush();
+        }
+        awaitCompaction();
         save();
+        journal.truncate();
+        deleteSegment();
+    }
+
+    // Ждёт окончания фонового сжатия, если оно идёт. Ошибка сжатия пробрасывается здесь.
+    public void awaitCompaction() {
+        Thread running;
+        synchronized (compactionLock) {
+            running = compactor;
+        }
+        if (running != null) {
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ManagerSaveException("Interrupted while waiting for compaction", e);
+            }
+        }
+        synchronized (compactionLock) {
+            Exception failure = compactionFailure;
+            compactionFailure = null;
+            if (failure != null) {
+                throw new ManagerSaveException("Journal compaction failed for " + file, failure);
+            }
+        }
+    }
+
+    // Барьер: возвращается, когда все изменения до вызова записаны и сброшены на диск.
+    public void flush() {
+        if (flusher != null) {
+            flusher().flush();
+        } else if (mode == PersistenceMode.JOURNAL) {
+            journal.force();
+        } else {
+            forceSnapshot();
+        }
+    }
+
+    public void close() {
+        if (flusher != null) {
+            flusher().close();
+        }
+        awaitCompaction();
+        journal.close();
+    }
+
+    private void onPut(Task task) {
+        if (mode == PersistenceMode.JOURNAL) {
+            appendRecord("PUT," + toString(task));
+        } else {
+            saveSnapshot();
+        }
+    }
+
+    private void onRemove(TaskType type, int id) {
+        if (mode == PersistenceMode.JOURNAL) {
+            appendRecord("REMOVE," + type + "," + id);
+        } else {
+            saveSnapshot();
+        }
+    }
+
+    private void onClear(TaskType type) {
+        if (mode == PersistenceMode.JOURNAL) {
+            appendRecord("CLEAR," + type);
+        } else {
+            saveSnapshot();
+        }
+    }
+
+    private void appendRecord(String record) {
+        if (batchRecords != null) {
+            batchRecords.add(record);
+        } else if (flusher == null) {
+            appendToJournal(List.of(record));
+        } else {
+            flusher().awaitIfRequired(flusher().submit(record));
+        }
+    }
+
+    private void saveSnapshot() {
+        if (batchRecords != null) {
+            return;
+        }
+        if (flusher == null) {
+            save();
+        } else {
+            flusher().awaitIfRequired(flusher().markDirty());
+        }
+    }
+
+    private void replay(String record, long offset) {
+        if (record.equals("BEGIN")) {
+            replayBatch = new ArrayList<>();
+            replayBatchOffset = offset;
+            return;
+        }
+        if (record.equals("COMMIT")) {
+            List<String> records = replayBatch;
+            replayBatch = null;
+            if (records != null) {
+                records.forEach(this::apply);
+            }
+            return;
+        }
+        if (replayBatch != null) {
+            replayBatch.add(record);
+        } else {
+            apply(record);
+        }
+    }
+
+    private void apply(String record) {
+        String[] fields = record.split(",", 2);
+        switch (fields[0]) {
+            case "PUT":
+                restoreTask(fromString(fields[1]));
+                break;
+            case "REMOVE":
+                String[] target = fields[1].split(",");
+                int id = Integer.parseInt(target[1]);
+                switch (TaskType.valueOf(target[0])) {
+                    case TASK:
+                        super.removeTask(id);
+                        break;
+                    case EPIC:
+                        super.removeEpic(id);
+                        break;
+                    case SUBTASK:
+                        super.removeSubtask(id);
+                        break;
+                }
+                break;
+            case "CLEAR":
+                switch (TaskType.valueOf(fields[1])) {
+                    case TASK:
+                        super.removeAllTasks();
+                        break;
+                    case EPIC:
+                        super.removeAllEpics();
+                        break;
+                    case SUBTASK:
+                        super.removeAllSubtasks();
+                        break;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal record: " + record);
+        }
     }
 
     private void save() {
+        try {
+            writeSnapshot(render(), false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сохранения менеджера в файл", e);
+        }
+    }
+
+    private ByteBuffer render() {
+        if (format == SnapshotFormat.BINARY) {
+            return BinarySnapshot.encode(view(TaskType.TASK), view(TaskType.EPIC), view(TaskType.SUBTASK));
+        }
         StringBuilder sb = new StringBuilder();
-        sb.append("id,type,name,status,description,epic");
+        sb.append(HEADER).append("\n");
 
-        for (Task task : getTasks()) {
+        for (Task task : view(TaskType.TASK)) {
             sb.append(toString(task)).append("\n");
         }
 
-        for (Task epic : getEpics()) {
+        for (Task epic : view(TaskType.EPIC)) {
             sb.append(toString(epic)).append("\n");
         }
 
-        for (Task subtask : getSubtasks()) {
+        for (Task subtask : view(TaskType.SUBTASK)) {
             sb.append(toString(subtask)).append("\n");
         }
 
+        return ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Вызывается только одним потоком за раз: под монитором менеджера или потоком BackgroundFlusher.
+    private void appendToJournal(List<String> records) {
+        int bytes = journal.append(records);
+        PersistenceListener current = listener;
+        if (current != null) {
+            current.journalAppended(bytes, journal.size());
+        }
+        for (String record : records) {
+            if (record.equals("BEGIN")) {
+                journalGroupOpen = true;
+            } else if (record.equals("COMMIT")) {
+                journalGroupOpen = false;
+            }
+        }
+        // группа BEGIN ... COMMIT не должна разрываться между файлами журнала
+        if (!journalGroupOpen && (journal.size() >= compactionBytes || journal.records() >= compactionRecords)) {
+            startCompaction();
+        }
+    }
+
+    // Если предыдущее сжатие ещё идёт, журнал продолжает расти до его окончания.
+    // Если оно упало и segment остался, сжимается он же, без новой ротации.
+    private void startCompaction() {
+        synchronized (compactionLock) {
+            if (compactor != null && compactor.isAlive()) {
+                return;
+            }
+            Path segment = segmentPath(file);
+            if (!Files.exists(segment)) {
+                journal.rotate(segment);
+            }
+            compactor = new Thread(this::compact, "task-compactor-" + file.getName());
+            compactor.setDaemon(true);
+            compactor.start();
+        }
+    }
+
+    // Снимок на момент ротации строится из файлов, а не из живого менеджера, поэтому мутации не ждут.
+    // Сбой между заменой снимка и удалением segment безопасен: записи журнала идемпотентны
+    // (PUT - полное значение, REMOVE и CLEAR - отсутствие), и повторное проигрывание даёт то же состояние.
+    private void compact() {
         try {
-            Files.writeString(file.toPath(), sb.toString());
+            FileBackedTaskManager scratch = new FileBackedTaskManager(file,
+                    PersistenceOptions.synchronous(PersistenceMode.JOURNAL).withFormat(format));
+            scratch.beginRestore();
+            scratch.restoreSnapshot();
+            TaskJournal.replay(segmentPath(file), scratch::replay);
+            scratch.replayBatch = null;
+            scratch.finishRestore();
+            scratch.listener = listener;
+            scratch.writeSnapshot(scratch.render(), true, Paths.get(file.getPath() + ".compact"));
+            Files.deleteIfExists(segmentPath(file));
+            compactionCount++;
+        } catch (IOException | RuntimeException e) {
+            synchronized (compactionLock) {
+                compactionFailure = e;
+            }
+        }
+    }
+
+    private void deleteSegment() {
+        try {
+            Files.deleteIfExists(segmentPath(file));
         } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка сохранения менеджера в файл", e);
+            throw new ManagerSaveException("Error removing journal segment " + file, e);
+        }
+    }
+
+    private void writeSnapshot(ByteBuffer buffer, boolean force) throws IOException {
+        writeSnapshot(buffer, force, Paths.get(file.getPath() + ".tmp"));
+    }
+
+    private void writeSnapshot(ByteBuffer buffer, boolean force, Path temp) throws IOException {
+        long start = System.nanoTime();
+        int bytes = buffer.remaining();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (force) {
+                channel.force(true);
+            }
+        }
+        Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        PersistenceListener current = listener;
+        if (current != null) {
+            current.snapshotWritten(bytes, System.nanoTime() - start);
         }
     }
 
+    private void forceSnapshot() {
+        if (!file.exists()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error syncing " + file, e);
+        }
+    }
+
+    // Поля записи CSV и журнала не содержат запятых и переводов строки: они экранируются.
+    // Пустое поле - null (как длина -1 в BinarySnapshot), пустая строка записывается как \0.
     private String toString(Task task) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(task.getId()).append(',').append(BinarySnapshot.typeOf(task)).append(',');
+        escape(sb, task.getName()).append(',').append(task.getStatus()).append(',');
+        escape(sb, task.getDescription()).append(',');
         if (task instanceof Subtask) {
-            Subtask subtask = (Subtask) task;
-            return String.format("%d,%s,%s,%s,%s,%d", task.getId(), TaskType.SUBTASK, task.getName(), task.getStatus(), task.getDescription(), subtask.getEpicId());
-        } else if (task instanceof Epic) {
-            return String.format("%d,%s,%s,%s,%s,", task.getId(), TaskType.EPIC, task.getName(), task.getStatus(), task.getDescription());
-        } else {
-            return String.format("%d,%s,%s,%s,%s,", task.getId(), TaskType.TASK, task.getName(), task.getStatus(), task.getDescription());
+            sb.append(((Subtask) task).getEpicId());
         }
+        return sb.toString();
     }
 
     private Task fromString(String value) {
-        String[] fields = value.split(",");
+        String[] fields = value.split(",", -1);
+        if (fields.length < 5) {
+            throw new IllegalArgumentException("Malformed task record: " + value);
+        }
         int id = Integer.parseInt(fields[0]);
         String type = fields[1];
-        String name = fields[2];
+        String name = unescape(fields[2]);
         String status = fields[3];
-        String description = fields[4];
+        String description = unescape(fields[4]);
         int epicId = type.equals(TaskType.SUBTASK.name()) ? Integer.parseInt(fields[5]) : -1;
 
         Task task;
@@ -134,23 +562,197 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return task;
     }
 
+    private static StringBuilder escape(StringBuilder sb, String value) {
+        if (value == null) {
+            return sb;
+        }
+        if (value.isEmpty()) {
+            return sb.append("\\0");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case ',':
+                    sb.append("\\c");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb;
+    }
+
+    private static String unescape(String field) {
+        if (field.isEmpty()) {
+            return null;
+        }
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder sb = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (++i == field.length()) {
+                throw new IllegalArgumentException("Dangling escape in record field: " + field);
+            }
+            switch (field.charAt(i)) {
+                case '\\':
+                    sb.append('\\');
+                    break;
+                case 'c':
+                    sb.append(',');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case '0':
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown escape in record field: " + field);
+            }
+        }
+        return sb.toString();
+    }
+
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        return loadFromFile(file, PersistenceMode.SNAPSHOT);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode) {
+        return loadFromFile(file, PersistenceOptions.synchronous(mode));
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceOptions options) {
+        return loadFromFile(file, options, Managers.getDefaultHistory());
+    }
+
+    static FileBackedTaskManager loadFromFile(File file, PersistenceOptions options, HistoryManager historyManager) {
+        return loadFromFile(file, options, historyManager, IntHashMap::new);
+    }
+
+    static FileBackedTaskManager loadFromFile(File file, PersistenceOptions options, HistoryManager historyManager,
+                                              IntMap.Factory storeFactory) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, options, historyManager, storeFactory);
+        manager.beginRestore();
         try {
-            List<String> lines = Files.readAllLines(Paths.get(file.getPath()));
-            for (String line : lines.subList(1, lines.size())) {
-                Task task = manager.fromString(line);
-                if (task instanceof Epic) {
-                    manager.addNewEpic((Epic) task);
-                } else if (task instanceof Subtask) {
-                    manager.addNewSubtask((Subtask) task);
-                } else {
-                    manager.addNewTask(task);
-                }
-            }
+            manager.restoreSnapshot();
         } catch (IOException e) {
             throw new ManagerSaveException("Error loading manager from file", e);
         }
+
+        // segment остаётся, если процесс остановился во время фонового сжатия
+        Path segment = segmentPath(file);
+        long replayed = manager.replayFile(segment);
+        Path journalPath = journalPath(file);
+        long records = manager.replayFile(journalPath);
+        manager.finishRestore();
+        if (options.getMode() == PersistenceMode.SNAPSHOT) {
+            if (replayed + records > 0) {
+                manager.save();
+            }
+            try {
+                Files.deleteIfExists(journalPath);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error removing journal " + journalPath, e);
+            }
+            manager.deleteSegment();
+        } else {
+            manager.journal.restored(records);
+            if (options.isCompacting() && Files.exists(segment)) {
+                manager.startCompaction();
+            }
+        }
         return manager;
     }
+
+    // Недописанный хвост отрезается сразу, иначе следующая запись склеится с ним. Вместе с ним отрезается
+    // и оборванный пакет (BEGIN без COMMIT): одиночные записи после перезапуска иначе попали бы в его группу
+    // и при следующей загрузке были бы отброшены вместе с ней. Возвращает число оставшихся записей.
+    private long replayFile(Path path) {
+        replayBatch = null;
+        TaskJournal.Replayed replayed = TaskJournal.replay(path, this::replay);
+        long end = replayed.end;
+        long records = replayed.records;
+        if (replayBatch != null) {
+            end = replayBatchOffset;
+            records -= replayBatch.size() + 1;
+            replayBatch = null;
+        }
+        TaskJournal.truncate(path, end);
+        return records;
+    }
+
+    private void restoreSnapshot() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        if (BinarySnapshot.isBinary(file.toPath())) {
+            BinarySnapshot.read(file.toPath(), this::restoreTask);
+        } else {
+            restoreCsv();
+        }
+    }
+
+    private void restoreCsv() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    restoreTask(fromString(line));
+                }
+            }
+        }
+    }
+
+    private static Path journalPath(File file) {
+        return Paths.get(file.getPath() + ".journal");
+    }
+
+    private static Path segmentPath(File file) {
+        return Paths.get(file.getPath() + ".journal.1");
+    }
+
+    // Вызывается потоком BackgroundFlusher; render() - под монитором менеджера.
+    private class FileSink implements BackgroundFlusher.Sink {
+        @Override
+        public void append(List<String> records) {
+            appendToJournal(records);
+        }
+
+        @Override
+        public ByteBuffer render() {
+            return FileBackedTaskManager.this.render();
+        }
+
+        @Override
+        public void writeSnapshot(ByteBuffer content, boolean force) throws IOException {
+            FileBackedTaskManager.this.writeSnapshot(content, force);
+        }
+
+        @Override
+        public void force() {
+            if (mode == PersistenceMode.JOURNAL) {
+                journal.force();
+            } else {
+                forceSnapshot();
+            }
+        }
+    }
 }
@@ -4,6 +4,8 @@ import taskmanager.tasks.Task;
 import java.util.List;
 
 public interface HistoryManager {
+    int DEFAULT_CAPACITY = 10;
+
     void add(Task task);
     void remove(int id);
     List<Task> getHistory();
@@ -0,0 +1,14 @@
+package taskmanager.managers;
+
+// Источник id для новых задач. Реализации должны быть потокобезопасными.
+public interface IdAllocator {
+    int nextId();
+
+    // id уже занят (задача загружена из файла): он и меньшие id больше не выдаются, если это возможно.
+    void reserve(int id);
+
+    // Откат пакета: id начиная с firstUnused не понадобились и могут быть выданы снова.
+    // Аллокаторы, общие для нескольких менеджеров, их просто не переиспользуют.
+    default void releaseFrom(int firstUnused) {
+    }
+}
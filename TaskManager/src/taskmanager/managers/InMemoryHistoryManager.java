@@ -5,39 +5,67 @@ import taskmanager.tasks.Task;
 import java.util.*;
 
 public class InMemoryHistoryManager implements HistoryManager {
-    private final Map<Integer, Node> nodeMap = new HashMap<>();
+    private final IntMap<Node> nodeMap = new IntHashMap<>();
     private final DoublyLinkedList historyList = new DoublyLinkedList();
-    private static final int MAX_HISTORY_SIZE = 10;
+    private final int capacity;
+    // Счётчики для метрик: повторный просмотр задачи, уже бывшей в истории (hit), и вытеснение старейшей.
+    private long addCount;
+    private long hitCount;
+    private long evictionCount;
+
+    public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive.");
+        }
+        this.capacity = capacity;
+    }
 
     @Override
-    public void add(Task task) {
+    public synchronized void add(Task task) {
+        addCount++;
         if (nodeMap.containsKey(task.getId())) {
+            hitCount++;
             remove(task.getId());
         }
         historyList.addLast(task);
         nodeMap.put(task.getId(), historyList.getTail());
 
-        if (historyList.size() > MAX_HISTORY_SIZE) {
+        if (historyList.size() > capacity) {
             Node oldestNode = historyList.removeFirst();
             nodeMap.remove(oldestNode.task.getId());
+            evictionCount++;
         }
     }
 
     @Override
-    public void remove(int id) {
-        if (!nodeMap.containsKey(id)) {
-            return;
+    public synchronized void remove(int id) {
+        Node nodeToRemove = nodeMap.remove(id);
+        if (nodeToRemove != null) {
+            historyList.removeNode(nodeToRemove);
         }
-        Node nodeToRemove = nodeMap.get(id);
-        historyList.removeNode(nodeToRemove);
-        nodeMap.remove(id);
     }
 
     @Override
-    public List<Task> getHistory() {
+    public synchronized List<Task> getHistory() {
         return historyList.getTasks();
     }
 
+    public synchronized long getAddCount() {
+        return addCount;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
     private static class Node {
         Task task;
         Node prev;
@@ -3,35 +3,375 @@ package taskmanager.managers;
 import taskmanager.tasks.*;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 public class InMemoryTaskManager implements TaskManager {
-    private final Map<Integer, Task> tasks = new HashMap<>();
-    private final Map<Integer, Epic> epics = new HashMap<>();
-    private final Map<Integer, Subtask> subtasks = new HashMap<>();
-    private final HistoryManager historyManager = Managers.getDefaultHistory();
-    private int currentId = 1;
+    private static final int EVENT_CAPACITY = 1 << 14;
+    private static final int MAX_TOMBSTONES = 100_000;
+
+    private final IndexedStore<Task> tasks;
+    private final IndexedStore<Epic> epics;
+    private final IndexedStore<Subtask> subtasks;
+    private final TextIndex textIndex = new TextIndex();
+    private final Collection<Task> tasksView;
+    private final Collection<Task> epicsView;
+    private final Collection<Task> subtasksView;
+    private final HistoryManager historyManager;
+    private final IdAllocator idAllocator;
+    // Больше любого выданного или загруженного id: с него продолжается выдача после отката пакета.
+    private final AtomicInteger currentId = new AtomicInteger(1);
+    private boolean restoring;
+    private final List<Subtask> pendingSubtasks = new ArrayList<>();
+    private Batch batch;
+    private final TaskEventRing events = new TaskEventRing(EVENT_CAPACITY);
+    private final ChangeLog changes = new ChangeLog(this::isStored, MAX_TOMBSTONES);
+    // null, пока никто не вызывал snapshot(): без снимков записи не платят за копирование.
+    private volatile SnapshotRoot snapshots;
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, StorageLayout.HASHED);
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager, StorageLayout layout) {
+        this(historyManager, layout, new SequentialIdAllocator());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager, StorageLayout layout, IdAllocator idAllocator) {
+        // Индексы статусов разрежены, поэтому плотная раскладка для них не подходит.
+        this(historyManager, idAllocator, layout == StorageLayout.DENSE ? DenseIntMap::new : IntHashMap::new,
+                IntHashMap::new);
+    }
+
+    // Наследник подставляет свою реализацию хранилища через фабрику, а не переопределением:
+    // конструктор не вызывает переопределяемых методов.
+    protected InMemoryTaskManager(HistoryManager historyManager, IdAllocator idAllocator, IntMap.Factory storeFactory) {
+        this(historyManager, idAllocator, storeFactory, storeFactory);
+    }
+
+    private InMemoryTaskManager(HistoryManager historyManager, IdAllocator idAllocator,
+                                IntMap.Factory storeFactory, IntMap.Factory indexFactory) {
+        this.historyManager = historyManager;
+        this.idAllocator = idAllocator;
+        this.tasks = new IndexedStore<>(storeFactory.create(), indexFactory, textIndex);
+        this.epics = new IndexedStore<>(storeFactory.create(), indexFactory, textIndex);
+        this.subtasks = new IndexedStore<>(storeFactory.create(), indexFactory, textIndex);
+        this.tasksView = Collections.unmodifiableCollection(tasks.values());
+        this.epicsView = Collections.unmodifiableCollection(epics.values());
+        this.subtasksView = Collections.unmodifiableCollection(subtasks.values());
+    }
+
+    public HistoryManager getHistoryManager() {
+        return historyManager;
+    }
+
+    // Поток изменений: created/updated/removed и смена статуса эпика.
+    public TaskEventRing getEvents() {
+        return events;
+    }
+
+    // Согласованное состояние на момент вызова; чтение снимка не блокирует писателей и не видит
+    // незафиксированный пакет. Первый вызов строит снимок по всему содержимому.
+    public TaskSnapshot snapshot() {
+        if (snapshots == null) {
+            startSnapshots();
+        }
+        return snapshots.current();
+    }
+
+    // Наследники, в которые пишут из нескольких потоков, вызывают его под своей блокировкой записи.
+    protected void startSnapshots() {
+        if (snapshots != null) {
+            return;
+        }
+        TaskSnapshot initial = TaskSnapshot.EMPTY;
+        for (IndexedStore<? extends Task> store : List.of(tasks, epics, subtasks)) {
+            for (Task task : store.values()) {
+                initial = TaskSnapshot.putting(task).apply(initial);
+            }
+        }
+        snapshots = new SnapshotRoot(initial);
+    }
 
     private int generateId() {
-        return currentId++;
+        int id = idAllocator.nextId();
+        currentId.accumulateAndGet(id + 1, Math::max);
+        return id;
     }
 
     private void updateEpicStatus(Epic epic) {
-        List<Subtask> subtasks = epic.getSubtasks();
-        if (subtasks.isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
+        if (restoring) {
+            return;
+        }
+        if (batch != null && !batch.settling) {
+            batch.dirtyEpics.add(epic);
+            return;
+        }
+        TaskStatus previous = epic.getStatus();
+        epic.setStatus(epic.calculateStatus());
+        epics.reindex(epic);
+        if (previous != epic.getStatus()) {
+            stamp(epic);
+            if (events.hasSubscribers()) {
+                publish(TaskEvent.epicStatusChanged(epic, previous));
+            }
+        }
+    }
+
+    // Каждое изменение получает версию в журнале изменений и, если есть подписчики, уходит событием.
+    // Повтор журнала при загрузке не записывается, как и в restoreTask: getChangesSince(0) всё равно полный.
+    private void recordChange(TaskEvent.Kind kind, Task task) {
+        if (restoring) {
             return;
         }
+        if (kind == TaskEvent.Kind.REMOVED) {
+            tombstone(task);
+        } else {
+            stamp(task);
+        }
+        if (events.hasSubscribers()) {
+            publish(TaskEvent.of(kind, task));
+        }
+    }
+
+    private void stamp(Task task) {
+        changes.changed(task);
+        if (snapshots != null) {
+            updateSnapshot(TaskSnapshot.putting(task));
+        }
+    }
+
+    private void tombstone(Task task) {
+        changes.removed(task.getId());
+        if (snapshots != null) {
+            updateSnapshot(TaskSnapshot.removing(task));
+        }
+    }
+
+    // Снимок получает изменения пакета только при фиксации, все сразу.
+    private void updateSnapshot(UnaryOperator<TaskSnapshot> change) {
+        if (batch != null) {
+            batch.snapshotChanges.add(change);
+        } else {
+            snapshots.apply(change);
+        }
+    }
+
+    // События пакета копятся до фиксации и при откате отбрасываются.
+    private void publish(TaskEvent event) {
+        if (batch != null) {
+            batch.events.add(event);
+        } else {
+            events.publish(event);
+        }
+    }
+
+    // Привязывает подзадачу к эпику (счётчики статусов меняются на разницу) и пересчитывает статусы.
+    private void linkSubtask(Epic epic, Subtask subtask) {
+        rememberLinks(epic);
+        Epic movedFrom = epic.addSubtask(subtask);
+        if (movedFrom != null) {
+            updateEpicStatus(movedFrom);
+        }
+        updateEpicStatus(epic);
+    }
 
-        boolean allNew = subtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.NEW);
-        boolean allDone = subtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.DONE);
+    // Массовая загрузка: статусы эпиков не пересчитываются на каждой записи,
+    // подзадачи могут идти раньше своего эпика - всё связывается в finishRestore().
+    protected void beginRestore() {
+        restoring = true;
+    }
 
-        if (allNew) {
-            epic.setStatus(TaskStatus.NEW);
-        } else if (allDone) {
-            epic.setStatus(TaskStatus.DONE);
+    // Статусы эпиков тоже считаются как часть загрузки - без версий и событий.
+    protected void finishRestore() {
+        try {
+            for (Subtask subtask : pendingSubtasks) {
+                if (subtasks.get(subtask.getId()) != subtask) {
+                    continue;
+                }
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic == null) {
+                    subtasks.remove(subtask.getId());
+                    throw new IllegalArgumentException("Epic with ID " + subtask.getEpicId() + " not found.");
+                }
+                epic.addSubtask(subtask);
+            }
+            for (Epic epic : epics.values()) {
+                epic.setStatus(epic.calculateStatus());
+                epics.reindex(epic);
+            }
+        } finally {
+            pendingSubtasks.clear();
+            restoring = false;
+        }
+    }
+
+    // Вставка с сохранённым id (восстановление из файла): без generateId(), существующая запись заменяется.
+    protected void restoreTask(Task task) {
+        int id = task.getId();
+        if (task instanceof Epic) {
+            Epic epic = (Epic) task;
+            Epic previous = epics.put(id, epic);
+            if (previous != null && previous != epic) {
+                previous.getSubtasks().forEach(epic::addSubtask);
+            }
+            updateEpicStatus(epic);
+        } else if (task instanceof Subtask) {
+            Subtask subtask = (Subtask) task;
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null && !restoring) {
+                throw new IllegalArgumentException("Epic with ID " + subtask.getEpicId() + " not found.");
+            }
+            Subtask previous = subtasks.put(id, subtask);
+            if (previous != null && previous != subtask) {
+                Epic previousEpic = epics.get(previous.getEpicId());
+                if (previousEpic != null && previousEpic != epic) {
+                    previousEpic.removeSubtask(previous);
+                    updateEpicStatus(previousEpic);
+                }
+            }
+            if (epic == null) {
+                pendingSubtasks.add(subtask);
+            } else {
+                linkSubtask(epic, subtask);
+            }
         } else {
-            epic.setStatus(TaskStatus.IN_PROGRESS);
+            tasks.put(id, task);
+        }
+        // При загрузке версии не нужны: getChangesSince(0) отвечает полным списком.
+        if (!restoring) {
+            stamp(task);
         }
+        idAllocator.reserve(id);
+        currentId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    // Все операции применяются целиком или не применяются вовсе. Статус каждого затронутого эпика
+    // пересчитывается один раз при фиксации. Изменения, сделанные прямо в объектах задач (setStatus и т.п.),
+    // при откате не восстанавливаются. События пакета публикуются только после фиксации.
+    // Вложенный вызов из того же потока выполняется в рамках внешнего пакета.
+    @Override
+    public void batch(Consumer<TaskManager> operations) {
+        if (batch != null) {
+            if (batch.owner != Thread.currentThread()) {
+                throw new IllegalStateException("A batch is already open in another thread.");
+            }
+            operations.accept(this);
+            return;
+        }
+        Batch current = new Batch(currentId.get());
+        batch = current;
+        try {
+            beginBatch();
+            operations.accept(this);
+            current.settling = true;
+            for (Epic epic : current.dirtyEpics) {
+                if (epics.get(epic.getId()) == epic) {
+                    updateEpicStatus(epic);
+                }
+            }
+            commitBatch();
+        } catch (RuntimeException | Error e) {
+            current.settling = true;
+            rollback(current);
+            batch = null;
+            abortBatch();
+            throw e;
+        }
+        batch = null;
+        if (!current.snapshotChanges.isEmpty()) {
+            snapshots.apply(current.snapshotChanges);
+        }
+        current.events.forEach(events::publish);
+        afterBatch();
+    }
+
+    // Точки расширения для наследников: сохранение изменений пакета одним действием.
+    protected void beginBatch() {
+    }
+
+    protected void commitBatch() {
+    }
+
+    protected void abortBatch() {
+    }
+
+    // Пакет уже закрыт: здесь можно ждать, отпуская блокировки, - другой поток откроет свой пакет.
+    protected void afterBatch() {
+    }
+
+    private void rollback(Batch undo) {
+        undo.tasks.forEach((id, task) -> restoreEntry(tasks, id, task));
+        undo.epics.forEach((id, epic) -> restoreEntry(epics, id, epic));
+        undo.subtasks.forEach((id, subtask) -> restoreEntry(subtasks, id, subtask));
+        undo.links.forEach((epic, links) -> {
+            epic.clearSubtasks();
+            links.forEach(epic::addSubtask);
+        });
+        currentId.set(undo.currentId);
+        idAllocator.releaseFrom(undo.currentId);
+        undo.links.keySet().forEach(this::updateEpicStatus);
+        undo.dirtyEpics.forEach(this::updateEpicStatus);
+    }
+
+    // Восстановленная запись получает новую версию: клиент мог уже забрать изменение из пакета.
+    private <T extends Task> void restoreEntry(IntMap<T> store, int id, T value) {
+        if (value == null) {
+            T removed = store.remove(id);
+            if (removed != null) {
+                tombstone(removed);
+            }
+        } else {
+            store.put(id, value);
+            stamp(value);
+        }
+    }
+
+    private boolean isStored(Task task) {
+        IntMap<? extends Task> store = task instanceof Epic ? epics : task instanceof Subtask ? subtasks : tasks;
+        return store.get(task.getId()) == task;
+    }
+
+    // Запоминает значение до первого изменения в пакете.
+    private <T> void remember(IntMap<T> store, Map<Integer, T> undo, int id) {
+        if (!undo.containsKey(id)) {
+            undo.put(id, store.get(id));
+        }
+    }
+
+    private void rememberTask(int id) {
+        if (batch != null) {
+            remember(tasks, batch.tasks, id);
+        }
+    }
+
+    private void rememberEpic(int id) {
+        if (batch != null) {
+            remember(epics, batch.epics, id);
+        }
+    }
+
+    private void rememberSubtask(int id) {
+        if (batch != null) {
+            remember(subtasks, batch.subtasks, id);
+        }
+    }
+
+    private void rememberLinks(Epic epic) {
+        if (batch != null && !batch.links.containsKey(epic)) {
+            batch.links.put(epic, epic.getSubtasks());
+        }
+    }
+
+    // Чтение без записи в историю - для служебных проверок наследников.
+    protected Subtask findSubtask(int id) {
+        return subtasks.get(id);
     }
 
     @Override
@@ -81,25 +421,37 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    // Менеджер хранит свои копии: изменения объекта вызывающим кодом попадают в менеджер только
+    // через update*, и в историю уходит действительно предыдущая версия. id записывается и в объект
+    // вызывающего. Чтение (getTask, view и т.п.) отдаёт хранимые объекты без копирования.
     @Override
     public int addNewTask(Task task) {
         if (tasks.containsKey(task.getId())) {
             throw new IllegalArgumentException("Task with this ID already exists.");
         }
         task.setId(generateId());
-        tasks.put(task.getId(), task);
+        rememberTask(task.getId());
+        Task stored = new Task(task);
+        tasks.put(task.getId(), stored);
+        recordChange(TaskEvent.Kind.CREATED, stored);
         return task.getId();
     }
 
     @Override
     public int addNewEpic(Epic epic) {
         epic.setId(generateId());
-        epics.put(epic.getId(), epic);
+        rememberEpic(epic.getId());
+        Epic stored = new Epic(epic);
+        epics.put(epic.getId(), stored);
+        recordChange(TaskEvent.Kind.CREATED, stored);
         return epic.getId();
     }
 
     @Override
     public int addNewSubtask(Subtask subtask) {
+        if (subtask.getId() == subtask.getEpicId()) {
+            throw new IllegalArgumentException("Epic cannot be its own subtask.");
+        }
         if (subtasks.containsKey(subtask.getId())) {
             throw new IllegalArgumentException("Subtask with this ID already exists.");
         }
@@ -108,70 +460,105 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         subtask.setId(generateId());
-        subtasks.put(subtask.getId(), subtask);
+        rememberSubtask(subtask.getId());
+        Subtask stored = new Subtask(subtask);
+        subtasks.put(stored.getId(), stored);
+        recordChange(TaskEvent.Kind.CREATED, stored);
 
-        Epic epic = epics.get(subtask.getEpicId());
-        epic.addSubtask(subtask);
-        updateEpicStatus(epic);
+        linkSubtask(epics.get(stored.getEpicId()), stored);
 
-        return subtask.getId();
+        return stored.getId();
     }
 
     @Override
     public void updateTask(Task task) {
-        if (!tasks.containsKey(task.getId())) {
+        Task previous = tasks.get(task.getId());
+        if (previous == null) {
             throw new IllegalArgumentException("Task not found.");
         }
-        Task oldTask = new Task(tasks.get(task.getId()));
-        historyManager.add(oldTask);
+        historyManager.add(new Task(previous));
 
-        tasks.put(task.getId(), task);
+        rememberTask(task.getId());
+        Task stored = new Task(task);
+        tasks.put(stored.getId(), stored);
+        recordChange(TaskEvent.Kind.UPDATED, stored);
     }
 
+    // Подзадачи переходят к новой копии эпика; статус эпика по-прежнему считается по подзадачам.
     @Override
     public void updateEpic(Epic epic) {
-        epics.put(epic.getId(), epic);
-        updateEpicStatus(epic);
+        rememberEpic(epic.getId());
+        Epic stored = new Epic(epic);
+        Epic previous = epics.put(stored.getId(), stored);
+        if (previous != null) {
+            rememberLinks(previous);
+            previous.getSubtasks().forEach(stored::addSubtask);
+        }
+        recordChange(TaskEvent.Kind.UPDATED, stored);
+        updateEpicStatus(stored);
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        if (!subtasks.containsKey(subtask.getId())) {
+        Subtask previous = subtasks.get(subtask.getId());
+        if (previous == null) {
             throw new IllegalArgumentException("Subtask not found.");
         }
-
-        subtasks.put(subtask.getId(), subtask);
-
         Epic epic = epics.get(subtask.getEpicId());
-        if (epic != null) {
-            updateEpicStatus(epic);
+        if (epic == null) {
+            throw new IllegalArgumentException("Epic with ID " + subtask.getEpicId() + " not found.");
         }
+
+        rememberSubtask(subtask.getId());
+        Subtask stored = new Subtask(subtask);
+        subtasks.put(stored.getId(), stored);
+        recordChange(TaskEvent.Kind.UPDATED, stored);
+
+        // Прежняя версия отвязывается от эпика, к которому привязана: epicId в ней могли поменять прямо в объекте.
+        Epic previousEpic = epics.get(previous.getLinkedEpicId());
+        if (previousEpic != null && previousEpic != epic) {
+            rememberLinks(previousEpic);
+            previousEpic.removeSubtask(previous);
+            updateEpicStatus(previousEpic);
+        }
+        linkSubtask(epic, stored);
     }
 
     @Override
     public void removeTask(int id) {
-        tasks.remove(id);
+        rememberTask(id);
+        Task task = tasks.remove(id);
+        if (task != null) {
+            recordChange(TaskEvent.Kind.REMOVED, task);
+        }
         historyManager.remove(id);
     }
 
     @Override
     public void removeEpic(int id) {
+        rememberEpic(id);
         Epic epic = epics.remove(id);
         if (epic != null) {
-            epic.getSubtasks().forEach(subtask -> {
+            epic.getSubtasksView().forEach(subtask -> {
+                rememberSubtask(subtask.getId());
                 subtasks.remove(subtask.getId());
+                recordChange(TaskEvent.Kind.REMOVED, subtask);
                 historyManager.remove(subtask.getId());
             });
+            recordChange(TaskEvent.Kind.REMOVED, epic);
             historyManager.remove(epic.getId());
         }
     }
 
     @Override
     public void removeSubtask(int id) {
+        rememberSubtask(id);
         Subtask subtask = subtasks.remove(id);
         if (subtask != null) {
+            recordChange(TaskEvent.Kind.REMOVED, subtask);
             Epic epic = epics.get(subtask.getEpicId());
             if (epic != null) {
+                rememberLinks(epic);
                 epic.removeSubtask(subtask);
                 updateEpicStatus(epic);
             }
@@ -188,20 +575,180 @@ public class InMemoryTaskManager implements TaskManager {
         return epic.getSubtasks();
     }
 
+    @Override
+    public Collection<Subtask> viewSubtasksByEpic(int epicId) {
+        Epic epic = epics.get(epicId);
+        return epic == null ? Collections.emptyList() : epic.getSubtasksView();
+    }
+
+    @Override
+    public Collection<Task> view(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return epicsView;
+            case SUBTASK:
+                return subtasksView;
+            default:
+                return tasksView;
+        }
+    }
+
+    @Override
+    public Stream<Task> stream(TaskType type) {
+        return view(type).stream();
+    }
+
+    @Override
+    public void forEach(TaskType type, Consumer<? super Task> action) {
+        view(type).forEach(action);
+    }
+
+    // Страница собирается обходом упорядоченного индекса id своего типа: стоимость зависит
+    // от размера страницы, а не от разброса id, и без копии всего хранилища.
+    @Override
+    public TaskPage page(TaskType type, int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive.");
+        }
+        IndexedStore<? extends Task> store = store(type);
+        List<Task> items = new ArrayList<>(Math.min(limit, store.size()));
+        boolean hasMore = store.collectAfter(Math.max(afterId, 0), limit, items);
+        int next = items.isEmpty() ? afterId : items.get(items.size() - 1).getId();
+        return new TaskPage(items, next, hasMore);
+    }
+
+    // Стоимость пропорциональна числу изменений после version, а не размеру хранилища.
+    // Первый вызов (0) всегда получает полный список: загруженные задачи версий не имеют.
+    @Override
+    public TaskChanges getChangesSince(long version) {
+        return version == 0 ? allChanges() : changesAfter(version);
+    }
+
+    // Для шардов ShardedTaskManager: отвечает на версию, ранее выданную этим экземпляром.
+    TaskChanges changesAfter(long version) {
+        TaskChanges delta = changes.since(version);
+        return delta != null ? delta : allChanges();
+    }
+
+    private TaskChanges allChanges() {
+        // Версия читается до обхода: всё, что изменится во время обхода, придёт в следующем ответе.
+        long current = changes.version();
+        List<Task> all = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        all.addAll(tasks.values());
+        all.addAll(epics.values());
+        all.addAll(subtasks.values());
+        return new TaskChanges(current, true, all, new int[0]);
+    }
+
+    @Override
+    public boolean contains(TaskType type, int id) {
+        return store(type).containsKey(id);
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        return store(type).findByStatus(status);
+    }
+
+    @Override
+    public int countByStatus(TaskType type, TaskStatus status) {
+        return store(type).countByStatus(status);
+    }
+
+    @Override
+    public List<Task> searchAll(String query, int limit) {
+        return resolve(textIndex.search(query, true, limit));
+    }
+
+    @Override
+    public List<Task> searchAny(String query, int limit) {
+        return resolve(textIndex.search(query, false, limit));
+    }
+
+    private List<Task> resolve(int[] ids) {
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = tasks.get(id);
+            if (task == null) {
+                task = epics.get(id);
+            }
+            if (task == null) {
+                task = subtasks.get(id);
+            }
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    private IndexedStore<? extends Task> store(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return epics;
+            case SUBTASK:
+                return subtasks;
+            default:
+                return tasks;
+        }
+    }
+
     @Override
     public void removeAllTasks() {
+        if (batch != null) {
+            tasks.forEachKey(this::rememberTask);
+        }
+        recordRemoved(tasks);
         tasks.clear();
     }
 
     @Override
     public void removeAllEpics() {
+        if (batch != null) {
+            epics.forEachKey(this::rememberEpic);
+            subtasks.forEachKey(this::rememberSubtask);
+        }
+        recordRemoved(subtasks);
+        recordRemoved(epics);
         epics.clear();
         subtasks.clear();
     }
 
     @Override
     public void removeAllSubtasks() {
+        if (batch != null) {
+            subtasks.forEachKey(this::rememberSubtask);
+        }
+        recordRemoved(subtasks);
         subtasks.clear();
-        epics.values().forEach(epic -> epic.getSubtasks().clear());
+        epics.values().forEach(epic -> {
+            rememberLinks(epic);
+            epic.clearSubtasks();
+            updateEpicStatus(epic);
+        });
+    }
+
+    private void recordRemoved(IndexedStore<? extends Task> store) {
+        store.values().forEach(task -> recordChange(TaskEvent.Kind.REMOVED, task));
+    }
+
+    // Журнал отката пакета: исходные значения затронутых записей и связей эпиков;
+    // события и изменения снимка до фиксации.
+    private static final class Batch {
+        private final Map<Integer, Task> tasks = new HashMap<>();
+        private final Map<Integer, Epic> epics = new HashMap<>();
+        private final Map<Integer, Subtask> subtasks = new HashMap<>();
+        private final Map<Epic, List<Subtask>> links = new IdentityHashMap<>();
+        private final Set<Epic> dirtyEpics = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<TaskEvent> events = new ArrayList<>();
+        private final List<UnaryOperator<TaskSnapshot>> snapshotChanges = new ArrayList<>();
+        private final int currentId;
+        private final Thread owner = Thread.currentThread();
+        // После операций пакета: статусы эпиков пересчитываются сразу, а не откладываются.
+        private boolean settling;
+
+        private Batch(int currentId) {
+            this.currentId = currentId;
+        }
     }
 }
@@ -0,0 +1,162 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntConsumer;
+
+// Хранилище со вторичными индексами: по статусу и полнотекстовым (общим для всех типов задач).
+// Каждая запись через put/remove/clear сразу попадает в индексы. Если статус поменяли прямо в объекте,
+// нужен reindex(). Индекс статусов - по отображению id -> задача на каждый статус из фабрики
+// менеджера: у ConcurrentTaskManager это ConcurrentIntMap, и полосы обновляют индекс
+// параллельно, без общей блокировки. Читатель между put и remove может ненадолго увидеть id
+// в двух статусах, поэтому findByStatus сверяет статус самой задачи.
+class IndexedStore<V extends Task> implements IntMap<V> {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final IntMap<V> store;
+    private final TextIndex textIndex;
+    private final List<IntMap<V>> byStatus = new ArrayList<>(STATUSES.length);
+    // id по возрастанию для page(): слово из 64 бит на блок id (id >> 6). Упаковывается только
+    // номер блока, поэтому расход - пара байт на id; обход страницы не зависит от разрывов между id.
+    private final ConcurrentSkipListMap<Integer, Long> order = new ConcurrentSkipListMap<>();
+
+    IndexedStore(IntMap<V> store, IntMap.Factory indexFactory, TextIndex textIndex) {
+        this.store = store;
+        this.textIndex = textIndex;
+        for (int i = 0; i < STATUSES.length; i++) {
+            byStatus.add(indexFactory.create());
+        }
+    }
+
+    @Override
+    public V get(int key) {
+        return store.get(key);
+    }
+
+    @Override
+    public V put(int key, V value) {
+        V previous = store.put(key, value);
+        if (previous == null) {
+            order.merge(key >> 6, 1L << (key & 63), (bits, bit) -> bits | bit);
+        }
+        index(value);
+        textIndex.add(value);
+        return previous;
+    }
+
+    @Override
+    public V remove(int key) {
+        V previous = store.remove(key);
+        if (previous != null) {
+            long bit = 1L << (key & 63);
+            order.computeIfPresent(key >> 6, (block, bits) -> (bits & ~bit) == 0 ? null : bits & ~bit);
+            unindex(key);
+            textIndex.remove(key);
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return store.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public void clear() {
+        store.forEachKey(textIndex::remove);
+        store.clear();
+        order.clear();
+        byStatus.forEach(IntMap::clear);
+    }
+
+    @Override
+    public Collection<V> values() {
+        return store.values();
+    }
+
+    @Override
+    public void forEachKey(IntConsumer action) {
+        store.forEachKey(action);
+    }
+
+    void reindex(V value) {
+        if (store.get(value.getId()) == value) {
+            index(value);
+        }
+    }
+
+    // Записи с id > afterId по возрастанию, не больше limit. Возвращает, есть ли записи дальше.
+    boolean collectAfter(int afterId, int limit, List<? super V> items) {
+        if (afterId == Integer.MAX_VALUE) {
+            return false;
+        }
+        int from = afterId + 1;
+        for (Map.Entry<Integer, Long> entry : order.tailMap(from >> 6, true).entrySet()) {
+            long bits = entry.getValue();
+            if (entry.getKey() == from >> 6) {
+                bits &= -1L << (from & 63);
+            }
+            for (; bits != 0; bits &= bits - 1) {
+                V value = store.get((entry.getKey() << 6) + Long.numberOfTrailingZeros(bits));
+                // null - запись удалили после чтения блока
+                if (value == null) {
+                    continue;
+                }
+                if (items.size() == limit) {
+                    return true;
+                }
+                items.add(value);
+            }
+        }
+        return false;
+    }
+
+    // Время пропорционально размеру результата, а не хранилища.
+    List<Task> findByStatus(TaskStatus status) {
+        Collection<V> indexed = byStatus.get(status.ordinal()).values();
+        List<Task> result = new ArrayList<>(indexed.size());
+        for (V value : indexed) {
+            if (value.getStatus() == status && store.get(value.getId()) == value) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    int countByStatus(TaskStatus status) {
+        return byStatus.get(status.ordinal()).size();
+    }
+
+    // Записи одного id меняются под одной полосой, поэтому гонок между index/unindex одного id нет.
+    private void index(V value) {
+        int id = value.getId();
+        int current = value.getStatus().ordinal();
+        for (int i = 0; i < STATUSES.length; i++) {
+            IntMap<V> set = byStatus.get(i);
+            if (i == current) {
+                set.put(id, value);
+            } else if (set.containsKey(id)) {
+                set.remove(id);
+            }
+        }
+    }
+
+    private void unindex(int id) {
+        for (IntMap<V> set : byStatus) {
+            if (set.containsKey(id)) {
+                set.remove(id);
+            }
+        }
+    }
+}
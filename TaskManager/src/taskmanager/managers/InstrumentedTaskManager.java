@@ -0,0 +1,470 @@
+package taskmanager.managers;
+
+import taskmanager.metrics.HistoryStats;
+import taskmanager.metrics.LatencyHistogram;
+import taskmanager.metrics.MetricsSnapshot;
+import taskmanager.metrics.OperationStats;
+import taskmanager.metrics.PersistenceStats;
+import taskmanager.metrics.TaskManagerMetricsMXBean;
+import taskmanager.tasks.*;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Обёртка над любым TaskManager: число вызовов, ошибок и гистограмма задержек по каждому методу,
+// для FileBackedTaskManager - запись на диск, для InMemoryHistoryManager - попадания и вытеснения.
+// Выключенная обёртка (setEnabled(false)) только читает volatile-флаг и вызывает делегата.
+public class InstrumentedTaskManager implements TaskManager, TaskManagerMetricsMXBean {
+    private final TaskManager delegate;
+    private final InMemoryHistoryManager history;
+    private final PersistenceMetrics persistence;
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private volatile boolean enabled = true;
+    private ObjectName registeredName;
+
+    private final Operation getTask = operation("getTask");
+    private final Operation getSubtask = operation("getSubtask");
+    private final Operation getEpic = operation("getEpic");
+    private final Operation getTasks = operation("getTasks");
+    private final Operation getEpics = operation("getEpics");
+    private final Operation getSubtasks = operation("getSubtasks");
+    private final Operation getSubtasksByEpic = operation("getSubtasksByEpic");
+    private final Operation getHistory = operation("getHistory");
+    private final Operation addNewTask = operation("addNewTask");
+    private final Operation addNewEpic = operation("addNewEpic");
+    private final Operation addNewSubtask = operation("addNewSubtask");
+    private final Operation updateTask = operation("updateTask");
+    private final Operation updateEpic = operation("updateEpic");
+    private final Operation updateSubtask = operation("updateSubtask");
+    private final Operation removeTask = operation("removeTask");
+    private final Operation removeEpic = operation("removeEpic");
+    private final Operation removeSubtask = operation("removeSubtask");
+    private final Operation removeAllTasks = operation("removeAllTasks");
+    private final Operation removeAllEpics = operation("removeAllEpics");
+    private final Operation removeAllSubtasks = operation("removeAllSubtasks");
+    private final Operation view = operation("view");
+    private final Operation viewSubtasksByEpic = operation("viewSubtasksByEpic");
+    private final Operation stream = operation("stream");
+    private final Operation forEach = operation("forEach");
+    private final Operation page = operation("page");
+    private final Operation contains = operation("contains");
+    private final Operation getByStatus = operation("getByStatus");
+    private final Operation countByStatus = operation("countByStatus");
+    private final Operation searchAll = operation("searchAll");
+    private final Operation searchAny = operation("searchAny");
+    private final Operation getChangesSince = operation("getChangesSince");
+    private final Operation batch = operation("batch");
+
+    public InstrumentedTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+        HistoryManager historyManager = delegate instanceof InMemoryTaskManager
+                ? ((InMemoryTaskManager) delegate).getHistoryManager()
+                : null;
+        this.history = historyManager instanceof InMemoryHistoryManager
+                ? (InMemoryHistoryManager) historyManager
+                : null;
+        if (delegate instanceof FileBackedTaskManager) {
+            FileBackedTaskManager fileBacked = (FileBackedTaskManager) delegate;
+            this.persistence = new PersistenceMetrics(fileBacked);
+            fileBacked.setPersistenceListener(persistence);
+        } else {
+            this.persistence = null;
+        }
+    }
+
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(getOperations(), getPersistence(), getHistoryStats());
+    }
+
+    // Регистрирует обёртку в платформенном MBeanServer как taskmanager:type=TaskManagerMetrics,name=<name>.
+    public synchronized void registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("taskmanager:type=TaskManagerMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registeredName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics MBean " + name, e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.unregisterMBean(registeredName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister metrics MBean " + registeredName, e);
+        } finally {
+            registeredName = null;
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Map<String, OperationStats> getOperations() {
+        Map<String, OperationStats> result = new LinkedHashMap<>();
+        operations.forEach((name, operation) -> result.put(name, operation.stats()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public PersistenceStats getPersistence() {
+        return persistence == null ? null : persistence.stats();
+    }
+
+    // Счётчики истории живут в самом InMemoryHistoryManager; reset() их не обнуляет.
+    @Override
+    public HistoryStats getHistoryStats() {
+        if (history == null) {
+            return null;
+        }
+        return new HistoryStats(history.getAddCount(), history.getHitCount(), history.getEvictionCount());
+    }
+
+    @Override
+    public void reset() {
+        operations.values().forEach(Operation::reset);
+        if (persistence != null) {
+            persistence.reset();
+        }
+    }
+
+    private Operation operation(String name) {
+        Operation operation = new Operation();
+        operations.put(name, operation);
+        return operation;
+    }
+
+    private <T> T call(Operation operation, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } catch (RuntimeException | Error e) {
+            operation.errors.increment();
+            throw e;
+        } finally {
+            operation.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    private void run(Operation operation, Runnable action) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } catch (RuntimeException | Error e) {
+            operation.errors.increment();
+            throw e;
+        } finally {
+            operation.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return enabled ? call(getTask, () -> delegate.getTask(id)) : delegate.getTask(id);
+    }
+
+    @Override
+    public Task getSubtask(int id) {
+        return enabled ? call(getSubtask, () -> delegate.getSubtask(id)) : delegate.getSubtask(id);
+    }
+
+    @Override
+    public Task getEpic(int id) {
+        return enabled ? call(getEpic, () -> delegate.getEpic(id)) : delegate.getEpic(id);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return enabled ? call(getTasks, delegate::getTasks) : delegate.getTasks();
+    }
+
+    @Override
+    public List<Task> getEpics() {
+        return enabled ? call(getEpics, delegate::getEpics) : delegate.getEpics();
+    }
+
+    @Override
+    public List<Task> getSubtasks() {
+        return enabled ? call(getSubtasks, delegate::getSubtasks) : delegate.getSubtasks();
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        return enabled
+                ? call(getSubtasksByEpic, () -> delegate.getSubtasksByEpic(epicId))
+                : delegate.getSubtasksByEpic(epicId);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return enabled ? call(getHistory, delegate::getHistory) : delegate.getHistory();
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        return enabled ? call(addNewTask, () -> delegate.addNewTask(task)) : delegate.addNewTask(task);
+    }
+
+    @Override
+    public int addNewEpic(Epic epic) {
+        return enabled ? call(addNewEpic, () -> delegate.addNewEpic(epic)) : delegate.addNewEpic(epic);
+    }
+
+    @Override
+    public int addNewSubtask(Subtask subtask) {
+        return enabled
+                ? call(addNewSubtask, () -> delegate.addNewSubtask(subtask))
+                : delegate.addNewSubtask(subtask);
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (enabled) {
+            run(updateTask, () -> delegate.updateTask(task));
+        } else {
+            delegate.updateTask(task);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        if (enabled) {
+            run(updateEpic, () -> delegate.updateEpic(epic));
+        } else {
+            delegate.updateEpic(epic);
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        if (enabled) {
+            run(updateSubtask, () -> delegate.updateSubtask(subtask));
+        } else {
+            delegate.updateSubtask(subtask);
+        }
+    }
+
+    @Override
+    public void removeTask(int id) {
+        if (enabled) {
+            run(removeTask, () -> delegate.removeTask(id));
+        } else {
+            delegate.removeTask(id);
+        }
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        if (enabled) {
+            run(removeEpic, () -> delegate.removeEpic(id));
+        } else {
+            delegate.removeEpic(id);
+        }
+    }
+
+    @Override
+    public void removeSubtask(int id) {
+        if (enabled) {
+            run(removeSubtask, () -> delegate.removeSubtask(id));
+        } else {
+            delegate.removeSubtask(id);
+        }
+    }
+
+    @Override
+    public void removeAllTasks() {
+        if (enabled) {
+            run(removeAllTasks, delegate::removeAllTasks);
+        } else {
+            delegate.removeAllTasks();
+        }
+    }
+
+    @Override
+    public void removeAllEpics() {
+        if (enabled) {
+            run(removeAllEpics, delegate::removeAllEpics);
+        } else {
+            delegate.removeAllEpics();
+        }
+    }
+
+    @Override
+    public void removeAllSubtasks() {
+        if (enabled) {
+            run(removeAllSubtasks, delegate::removeAllSubtasks);
+        } else {
+            delegate.removeAllSubtasks();
+        }
+    }
+
+    @Override
+    public Collection<Task> view(TaskType type) {
+        return enabled ? call(view, () -> delegate.view(type)) : delegate.view(type);
+    }
+
+    @Override
+    public Collection<Subtask> viewSubtasksByEpic(int epicId) {
+        return enabled
+                ? call(viewSubtasksByEpic, () -> delegate.viewSubtasksByEpic(epicId))
+                : delegate.viewSubtasksByEpic(epicId);
+    }
+
+    // Замеряется только создание потока, а не его обход вызывающим кодом.
+    @Override
+    public Stream<Task> stream(TaskType type) {
+        return enabled ? call(stream, () -> delegate.stream(type)) : delegate.stream(type);
+    }
+
+    @Override
+    public void forEach(TaskType type, Consumer<? super Task> action) {
+        if (enabled) {
+            run(forEach, () -> delegate.forEach(type, action));
+        } else {
+            delegate.forEach(type, action);
+        }
+    }
+
+    @Override
+    public TaskPage page(TaskType type, int afterId, int limit) {
+        return enabled
+                ? call(page, () -> delegate.page(type, afterId, limit))
+                : delegate.page(type, afterId, limit);
+    }
+
+    @Override
+    public boolean contains(TaskType type, int id) {
+        return enabled ? call(contains, () -> delegate.contains(type, id)) : delegate.contains(type, id);
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        return enabled
+                ? call(getByStatus, () -> delegate.getByStatus(type, status))
+                : delegate.getByStatus(type, status);
+    }
+
+    @Override
+    public int countByStatus(TaskType type, TaskStatus status) {
+        return enabled
+                ? call(countByStatus, () -> delegate.countByStatus(type, status))
+                : delegate.countByStatus(type, status);
+    }
+
+    @Override
+    public List<Task> searchAll(String query, int limit) {
+        return enabled
+                ? call(searchAll, () -> delegate.searchAll(query, limit))
+                : delegate.searchAll(query, limit);
+    }
+
+    @Override
+    public List<Task> searchAny(String query, int limit) {
+        return enabled
+                ? call(searchAny, () -> delegate.searchAny(query, limit))
+                : delegate.searchAny(query, limit);
+    }
+
+    @Override
+    public TaskChanges getChangesSince(long version) {
+        return enabled
+                ? call(getChangesSince, () -> delegate.getChangesSince(version))
+                : delegate.getChangesSince(version);
+    }
+
+    // Операции внутри пакета идут напрямую в делегата и замеряются только всем пакетом.
+    @Override
+    public void batch(Consumer<TaskManager> operations) {
+        if (enabled) {
+            run(batch, () -> delegate.batch(operations));
+        } else {
+            delegate.batch(operations);
+        }
+    }
+
+    private static final class Operation {
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private OperationStats stats() {
+            return new OperationStats(errors.sum(), latency);
+        }
+
+        private void reset() {
+            errors.reset();
+            latency.reset();
+        }
+    }
+
+    private final class PersistenceMetrics implements PersistenceListener {
+        private final FileBackedTaskManager manager;
+        private final LatencyHistogram snapshotWrites = new LatencyHistogram();
+        private final LongAdder snapshotBytes = new LongAdder();
+        private final AtomicLong lastSnapshotBytes = new AtomicLong();
+        private final LongAdder journalAppends = new LongAdder();
+        private final LongAdder journalBytes = new LongAdder();
+
+        private PersistenceMetrics(FileBackedTaskManager manager) {
+            this.manager = manager;
+        }
+
+        @Override
+        public void snapshotWritten(long bytes, long nanos) {
+            if (enabled) {
+                snapshotWrites.record(nanos);
+                snapshotBytes.add(bytes);
+                lastSnapshotBytes.set(bytes);
+            }
+        }
+
+        @Override
+        public void journalAppended(long bytes, long journalSize) {
+            if (enabled) {
+                journalAppends.increment();
+                journalBytes.add(bytes);
+            }
+        }
+
+        private PersistenceStats stats() {
+            return new PersistenceStats(snapshotBytes.sum(), lastSnapshotBytes.get(),
+                    new OperationStats(0, snapshotWrites), journalAppends.sum(), journalBytes.sum(),
+                    manager.getJournalSize());
+        }
+
+        private void reset() {
+            snapshotWrites.reset();
+            snapshotBytes.reset();
+            lastSnapshotBytes.set(0);
+            journalAppends.reset();
+            journalBytes.reset();
+        }
+    }
+}
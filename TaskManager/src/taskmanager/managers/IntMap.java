@@ -0,0 +1,33 @@
+package taskmanager.managers;
+
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+// Отображение int -> объект без упаковки ключей в Integer. null в качестве значения не допускается.
+public interface IntMap<V> {
+    V get(int key);
+
+    V put(int key, V value);
+
+    V remove(int key);
+
+    boolean containsKey(int key);
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    void clear();
+
+    // Живое представление: отражает изменения отображения, изменять через него нельзя.
+    Collection<V> values();
+
+    void forEachKey(IntConsumer action);
+
+    // Создаёт пустое хранилище; передаётся в конструктор менеджера (IntHashMap::new и т.п.).
+    interface Factory {
+        <V> IntMap<V> create();
+    }
+}
@@ -0,0 +1,145 @@
+package taskmanager.managers;
+
+import java.util.Arrays;
+
+// Множество int: элементы лежат плотно в members (обход и копия - O(size)),
+// удаление переносит последний элемент в дыру. Пока элементов немного, поиск - линейный;
+// начиная с SMALL_LIMIT позиции элементов ведутся в таблице с открытой адресацией.
+public class IntSet {
+    private static final int SMALL_LIMIT = 8;
+
+    private int[] members = new int[4];
+    private int size;
+    // slotPositions[i] - позиция элемента slotKeys[i] в members, -1 - пустая ячейка; null - таблицы ещё нет
+    private int[] slotKeys;
+    private int[] slotPositions;
+    private int mask;
+    private int shift;
+
+    public boolean add(int value) {
+        if (contains(value)) {
+            return false;
+        }
+        if (size == members.length) {
+            members = Arrays.copyOf(members, size * 2);
+        }
+        members[size] = value;
+        if (slotKeys != null) {
+            int slot = home(value);
+            while (slotPositions[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = value;
+            slotPositions[slot] = size;
+        }
+        size++;
+        if (slotKeys == null ? size > SMALL_LIMIT : size > slotKeys.length * 3 / 4) {
+            rebuild(slotKeys == null ? SMALL_LIMIT * 4 : slotKeys.length * 2);
+        }
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int slot = -1;
+        int position;
+        if (slotKeys == null) {
+            position = scan(value);
+        } else {
+            slot = find(value);
+            position = slot < 0 ? -1 : slotPositions[slot];
+        }
+        if (position < 0) {
+            return false;
+        }
+        int last = members[--size];
+        members[position] = last;
+        if (slotKeys != null) {
+            if (last != value) {
+                slotPositions[find(last)] = position;
+            }
+            shiftBack(slot);
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return slotKeys == null ? scan(value) >= 0 : find(value) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int position) {
+        if (position >= size) {
+            throw new IndexOutOfBoundsException(position);
+        }
+        return members[position];
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(members, size);
+    }
+
+    public void clear() {
+        size = 0;
+        members = new int[4];
+        slotKeys = null;
+        slotPositions = null;
+    }
+
+    private int scan(int value) {
+        for (int i = 0; i < size; i++) {
+            if (members[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int find(int value) {
+        int slot = home(value);
+        while (slotPositions[slot] >= 0) {
+            if (slotKeys[slot] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int home(int value) {
+        return (value * 0x9E3779B9) >>> shift;
+    }
+
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int current = (slot + 1) & mask;
+        while (slotPositions[current] >= 0) {
+            int home = home(slotKeys[current]);
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                slotKeys[gap] = slotKeys[current];
+                slotPositions[gap] = slotPositions[current];
+                gap = current;
+            }
+            current = (current + 1) & mask;
+        }
+        slotPositions[gap] = -1;
+    }
+
+    private void rebuild(int capacity) {
+        slotKeys = new int[capacity];
+        slotPositions = new int[capacity];
+        Arrays.fill(slotPositions, -1);
+        mask = capacity - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        for (int i = 0; i < size; i++) {
+            int slot = home(members[i]);
+            while (slotPositions[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = members[i];
+            slotPositions[slot] = i;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package taskmanager.managers;
 
 public class ManagerSaveException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public ManagerSaveException(String message, Throwable cause) {
         super(message, cause);
     }
@@ -2,12 +2,60 @@ package taskmanager.managers;
 
 import taskmanager.tasks.*;
 
+import java.io.File;
+import java.nio.file.Path;
+
 public class Managers {
     public static TaskManager getDefault() {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    // id выдаются блоками из общего файла: несколько процессов на одной машине не пересекаются по id.
+    public static TaskManager getConcurrent(Path idFile) {
+        return new ConcurrentTaskManager(new BlockIdAllocator(idFile));
+    }
+
+    // shardCount файлов <file>.shard<i> с журналом; загрузка - ShardedTaskManager.loadFromFile с тем же числом шардов.
+    public static ShardedTaskManager getSharded(File file, int shardCount) {
+        return new ShardedTaskManager(file, shardCount, PersistenceOptions.synchronous(PersistenceMode.JOURNAL));
+    }
+
+    // Задачи на диске, в куче только индекс и LRU-кэш.
+    public static DiskBackedTaskManager getDiskBacked(File file) {
+        return new DiskBackedTaskManager(file);
+    }
+
+    // Асинхронный фасад на виртуальных потоках поверх потокобезопасного менеджера.
+    public static AsyncTaskManager getAsync() {
+        return new AsyncTaskManager(new ConcurrentTaskManager());
+    }
+
+    public static InstrumentedTaskManager getInstrumented() {
+        return new InstrumentedTaskManager(getDefault());
+    }
+
+    // Метрики поверх уже созданного менеджера, например FileBackedTaskManager.loadFromFile(...).
+    public static InstrumentedTaskManager instrument(TaskManager manager) {
+        return new InstrumentedTaskManager(manager);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    public static HistoryManager getConcurrentHistory() {
+        return new ConcurrentHistoryManager();
+    }
+
+    public static HistoryManager getConcurrentHistory(int capacity) {
+        return new ConcurrentHistoryManager(capacity);
+    }
 }
\ No newline at end of file
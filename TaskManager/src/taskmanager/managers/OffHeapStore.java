@@ -0,0 +1,252 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.TaskStatus;
+import taskmanager.tasks.TaskType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Записи задач вне кучи. На каждый id - слот фиксированной ширины (номер слота = id),
+// name и description лежат в арене строк, которая только дописывается.
+// Ссылка на строку в слоте - номер блока арены в старших 32 битах и смещение в младших.
+// Удалённый слот помечается, но его строки живут до сжатия арены - их ещё читают выданные представления.
+// При сжатии строки удалённых слотов не переносятся, и представления читают вместо них null.
+final class OffHeapStore {
+    static final int SLOT_SIZE = 32;
+
+    private static final int TYPE = 0; // 0 - слот пуст, иначе 1 + ordinal TaskType
+    private static final int STATUS = 1;
+    private static final int DELETED = 2;
+    private static final int EPIC_ID = 4;
+    private static final int NAME = 8;
+    private static final int DESCRIPTION = 16;
+    private static final int NAME_LENGTH = 24; // -1 для null
+    private static final int DESCRIPTION_LENGTH = 28;
+
+    private static final int SLOTS_PER_CHUNK = 1 << 15;
+    private static final int ARENA_CHUNK_SIZE = 1 << 22;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final List<ByteBuffer> slots = new ArrayList<>();
+    private List<ByteBuffer> arena = new ArrayList<>();
+    private long arenaUsed;
+    private long garbage;
+    private byte[] scratch = new byte[256];
+    // Пока идёт пакет, арена не сжимается: откат возвращает слотам прежние ссылки на строки.
+    private boolean pinned;
+
+    int capacity() {
+        return slots.size() * SLOTS_PER_CHUNK;
+    }
+
+    boolean contains(int id) {
+        return type(id) != null;
+    }
+
+    TaskType type(int id) {
+        if (id <= 0 || id >= capacity()) {
+            return null;
+        }
+        ByteBuffer chunk = chunk(id);
+        int slot = slot(id);
+        byte type = chunk.get(slot + TYPE);
+        return type == 0 || chunk.get(slot + DELETED) != 0 ? null : TYPES[type - 1];
+    }
+
+    TaskStatus status(int id) {
+        return STATUSES[chunk(id).get(slot(id) + STATUS)];
+    }
+
+    void setStatus(int id, TaskStatus status) {
+        chunk(id).put(slot(id) + STATUS, (byte) status.ordinal());
+    }
+
+    int epicId(int id) {
+        return chunk(id).getInt(slot(id) + EPIC_ID);
+    }
+
+    String name(int id) {
+        return readString(id, NAME, NAME_LENGTH);
+    }
+
+    String description(int id) {
+        return readString(id, DESCRIPTION, DESCRIPTION_LENGTH);
+    }
+
+    void write(int id, TaskType type, TaskStatus status, int epicId, String name, String description) {
+        while (id >= capacity()) {
+            slots.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * SLOT_SIZE));
+        }
+        ByteBuffer chunk = chunk(id);
+        int slot = slot(id);
+        // строки удалённого слота уже посчитаны мусором в delete
+        boolean existing = chunk.get(slot + TYPE) != 0 && chunk.get(slot + DELETED) == 0;
+        writeString(chunk, slot, NAME, NAME_LENGTH, name, existing);
+        writeString(chunk, slot, DESCRIPTION, DESCRIPTION_LENGTH, description, existing);
+        chunk.put(slot + TYPE, (byte) (type.ordinal() + 1))
+                .put(slot + STATUS, (byte) status.ordinal())
+                .put(slot + DELETED, (byte) 0)
+                .putInt(slot + EPIC_ID, epicId);
+        compactIfWasteful();
+    }
+
+    void delete(int id) {
+        if (!contains(id)) {
+            return;
+        }
+        ByteBuffer chunk = chunk(id);
+        int slot = slot(id);
+        chunk.put(slot + DELETED, (byte) 1);
+        garbage += Math.max(chunk.getInt(slot + NAME_LENGTH), 0) + Math.max(chunk.getInt(slot + DESCRIPTION_LENGTH), 0);
+        compactIfWasteful();
+    }
+
+    // Копия слота для отката пакета; null - слота ещё нет.
+    byte[] copySlot(int id) {
+        if (id <= 0 || id >= capacity()) {
+            return null;
+        }
+        byte[] copy = new byte[SLOT_SIZE];
+        chunk(id).get(slot(id), copy);
+        return copy;
+    }
+
+    void restoreSlot(int id, byte[] copy) {
+        if (id >= capacity()) {
+            return;
+        }
+        chunk(id).put(slot(id), copy == null ? new byte[SLOT_SIZE] : copy);
+    }
+
+    void setPinned(boolean pinned) {
+        this.pinned = pinned;
+    }
+
+    // Байт вне кучи: слоты и арена целиком, включая незанятый хвост последних блоков.
+    long offHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer chunk : slots) {
+            bytes += chunk.capacity();
+        }
+        for (ByteBuffer chunk : arena) {
+            bytes += chunk.capacity();
+        }
+        return bytes;
+    }
+
+    long garbageBytes() {
+        return garbage;
+    }
+
+    // Переписывает строки живых слотов в новую арену. У удалённых слотов строки становятся null.
+    void compactArena() {
+        List<ByteBuffer> old = arena;
+        arena = new ArrayList<>();
+        arenaUsed = 0;
+        garbage = 0;
+        for (int id = 1; id < capacity(); id++) {
+            ByteBuffer chunk = chunk(id);
+            int slot = slot(id);
+            if (chunk.get(slot + TYPE) == 0) {
+                continue;
+            }
+            boolean live = chunk.get(slot + DELETED) == 0;
+            moveString(old, chunk, slot, NAME, NAME_LENGTH, live);
+            moveString(old, chunk, slot, DESCRIPTION, DESCRIPTION_LENGTH, live);
+        }
+    }
+
+    private void compactIfWasteful() {
+        if (!pinned && garbage > ARENA_CHUNK_SIZE && garbage > arenaUsed / 2) {
+            compactArena();
+        }
+    }
+
+    private void moveString(List<ByteBuffer> from, ByteBuffer chunk, int slot, int reference, int lengthField,
+                            boolean live) {
+        int length = chunk.getInt(slot + lengthField);
+        if (length < 0) {
+            return;
+        }
+        if (!live) {
+            chunk.putInt(slot + lengthField, -1);
+            return;
+        }
+        long position = chunk.getLong(slot + reference);
+        byte[] bytes = new byte[length];
+        from.get((int) (position >>> 32)).get((int) position, bytes);
+        chunk.putLong(slot + reference, append(bytes));
+    }
+
+    private void writeString(ByteBuffer chunk, int slot, int reference, int lengthField, String value,
+                             boolean existing) {
+        byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        if (existing) {
+            int length = chunk.getInt(slot + lengthField);
+            if (sameBytes(chunk.getLong(slot + reference), length, bytes)) {
+                return;
+            }
+            garbage += Math.max(length, 0);
+        }
+        if (bytes == null) {
+            chunk.putInt(slot + lengthField, -1);
+            return;
+        }
+        chunk.putLong(slot + reference, append(bytes)).putInt(slot + lengthField, bytes.length);
+    }
+
+    private boolean sameBytes(long position, int length, byte[] bytes) {
+        if (bytes == null || length < 0) {
+            return bytes == null && length < 0;
+        }
+        if (bytes.length != length) {
+            return false;
+        }
+        ByteBuffer chunk = arena.get((int) (position >>> 32));
+        int offset = (int) position;
+        for (int i = 0; i < length; i++) {
+            if (chunk.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long append(byte[] bytes) {
+        ByteBuffer chunk = arena.isEmpty() ? null : arena.get(arena.size() - 1);
+        if (chunk == null || chunk.remaining() < bytes.length) {
+            chunk = ByteBuffer.allocateDirect(Math.max(ARENA_CHUNK_SIZE, bytes.length));
+            arena.add(chunk);
+        }
+        long position = ((long) (arena.size() - 1) << 32) | chunk.position();
+        chunk.put(bytes);
+        arenaUsed += bytes.length;
+        return position;
+    }
+
+    private String readString(int id, int reference, int lengthField) {
+        ByteBuffer chunk = chunk(id);
+        int slot = slot(id);
+        int length = chunk.getInt(slot + lengthField);
+        if (length < 0) {
+            return null;
+        }
+        long position = chunk.getLong(slot + reference);
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        arena.get((int) (position >>> 32)).get((int) position, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer chunk(int id) {
+        return slots.get(id / SLOTS_PER_CHUNK);
+    }
+
+    private static int slot(int id) {
+        return (id % SLOTS_PER_CHUNK) * SLOT_SIZE;
+    }
+}
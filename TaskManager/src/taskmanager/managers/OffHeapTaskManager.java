@@ -0,0 +1,615 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.*;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// Менеджер, который держит задачи вне кучи (OffHeapStore): в куче только подзадачи эпиков и счётчики.
+// Вместо объектов наружу выдаются лёгкие представления - они читают поля из слота при каждом обращении.
+// setStatus/setDescription у представления меняют только его, в хранилище изменения попадают через update*.
+// Эпики-представления не содержат объектов подзадач - для этого есть getSubtasksByEpic.
+// Представление удалённой задачи показывает последние значения только до compactStrings(): менеджер
+// не отслеживает выданные представления, поэтому после сжатия их name и description становятся null
+// (локальные изменения представления сохраняются). Кому нужны значения после удаления - копирует задачу.
+public class OffHeapTaskManager implements TaskManager {
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final OffHeapStore store = new OffHeapStore();
+    private final IntMap<EpicLinks> links = new IntHashMap<>();
+    private final int[][] counts = new int[TYPES.length][STATUSES.length];
+    private final HistoryManager historyManager;
+    private int nextId = 1;
+    private Undo undo;
+
+    public OffHeapTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public OffHeapTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    public synchronized long getOffHeapBytes() {
+        return store.offHeapBytes();
+    }
+
+    public synchronized long getStringGarbageBytes() {
+        return store.garbageBytes();
+    }
+
+    // Переписывает арену строк без удалённых и перезаписанных значений.
+    // Представления удалённых задач после этого теряют name и description.
+    public synchronized void compactStrings() {
+        if (undo != null) {
+            throw new IllegalStateException("Cannot compact inside a batch.");
+        }
+        store.compactArena();
+    }
+
+    @Override
+    public synchronized Task getTask(int id) {
+        return touch(load(id, TaskType.TASK));
+    }
+
+    @Override
+    public synchronized Task getSubtask(int id) {
+        return touch(load(id, TaskType.SUBTASK));
+    }
+
+    @Override
+    public synchronized Task getEpic(int id) {
+        return touch(load(id, TaskType.EPIC));
+    }
+
+    private Task touch(Task task) {
+        if (task != null) {
+            historyManager.add(task);
+        }
+        return task;
+    }
+
+    @Override
+    public synchronized List<Task> getTasks() {
+        return new ArrayList<>(view(TaskType.TASK));
+    }
+
+    @Override
+    public synchronized List<Task> getEpics() {
+        return new ArrayList<>(view(TaskType.EPIC));
+    }
+
+    @Override
+    public synchronized List<Task> getSubtasks() {
+        return new ArrayList<>(view(TaskType.SUBTASK));
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasksByEpic(int epicId) {
+        EpicLinks epic = links.get(epicId);
+        List<Subtask> result = new ArrayList<>();
+        if (epic != null) {
+            for (int i = 0; i < epic.subtasks.size(); i++) {
+                result.add(new SubtaskView(this, epic.subtasks.get(i)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public synchronized int addNewTask(Task task) {
+        if (store.type(task.getId()) == TaskType.TASK) {
+            throw new IllegalArgumentException("Task with this ID already exists.");
+        }
+        task.setId(nextId);
+        put(task, TaskType.TASK, 0);
+        return task.getId();
+    }
+
+    @Override
+    public synchronized int addNewEpic(Epic epic) {
+        epic.setId(nextId);
+        put(epic, TaskType.EPIC, 0);
+        return epic.getId();
+    }
+
+    @Override
+    public synchronized int addNewSubtask(Subtask subtask) {
+        if (subtask.getId() == subtask.getEpicId()) {
+            throw new IllegalArgumentException("Epic cannot be its own subtask.");
+        }
+        if (store.type(subtask.getId()) == TaskType.SUBTASK) {
+            throw new IllegalArgumentException("Subtask with this ID already exists.");
+        }
+        if (store.type(subtask.getEpicId()) != TaskType.EPIC) {
+            throw new IllegalArgumentException("Epic with ID " + subtask.getEpicId() + " not found.");
+        }
+        subtask.setId(nextId);
+        put(subtask, TaskType.SUBTASK, subtask.getEpicId());
+        return subtask.getId();
+    }
+
+    @Override
+    public synchronized void updateTask(Task task) {
+        if (store.type(task.getId()) != TaskType.TASK) {
+            throw new IllegalArgumentException("Task not found.");
+        }
+        historyManager.add(new Task(new TaskView(this, task.getId())));
+        put(task, TaskType.TASK, 0);
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic epic) {
+        put(epic, TaskType.EPIC, 0);
+    }
+
+    @Override
+    public synchronized void updateSubtask(Subtask subtask) {
+        if (store.type(subtask.getId()) != TaskType.SUBTASK) {
+            throw new IllegalArgumentException("Subtask not found.");
+        }
+        if (store.type(subtask.getEpicId()) != TaskType.EPIC) {
+            throw new IllegalArgumentException("Epic with ID " + subtask.getEpicId() + " not found.");
+        }
+        put(subtask, TaskType.SUBTASK, subtask.getEpicId());
+    }
+
+    @Override
+    public synchronized void removeTask(int id) {
+        if (store.type(id) == TaskType.TASK) {
+            delete(id);
+        }
+    }
+
+    @Override
+    public synchronized void removeEpic(int id) {
+        if (store.type(id) != TaskType.EPIC) {
+            return;
+        }
+        EpicLinks epic = links.get(id);
+        if (epic != null) {
+            for (int subtaskId : epic.subtasks.toArray()) {
+                delete(subtaskId);
+            }
+            rememberLinks(id, epic);
+            links.remove(id);
+        }
+        delete(id);
+    }
+
+    @Override
+    public synchronized void removeSubtask(int id) {
+        if (store.type(id) == TaskType.SUBTASK) {
+            delete(id);
+        }
+    }
+
+    @Override
+    public synchronized void removeAllTasks() {
+        clear(TaskType.TASK);
+    }
+
+    @Override
+    public synchronized void removeAllEpics() {
+        clear(TaskType.SUBTASK);
+        clear(TaskType.EPIC);
+        links.forEachKey(epicId -> rememberLinks(epicId, links.get(epicId)));
+        links.clear();
+    }
+
+    @Override
+    public synchronized void removeAllSubtasks() {
+        clear(TaskType.SUBTASK);
+    }
+
+    // При ошибке слоты, подзадачи эпиков и счётчики возвращаются к состоянию до пакета.
+    // Строки, дописанные в арену за время пакета, остаются в ней до сжатия.
+    // id и слоты задач, созданных в откаченном пакете, повторно не выдаются: представления,
+    // полученные внутри пакета, иначе читали бы данные новой задачи.
+    @Override
+    public synchronized void batch(Consumer<TaskManager> operations) {
+        if (undo != null) {
+            operations.accept(this);
+            return;
+        }
+        undo = new Undo(counts);
+        store.setPinned(true);
+        try {
+            operations.accept(this);
+            undo = null;
+        } catch (RuntimeException | Error e) {
+            Undo current = undo;
+            undo = null;
+            rollback(current);
+            throw e;
+        } finally {
+            store.setPinned(false);
+        }
+    }
+
+    // Живое представление: объекты-представления создаются при обходе.
+    @Override
+    public synchronized Collection<Task> view(TaskType type) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                return new TypeIterator(type);
+            }
+
+            @Override
+            public int size() {
+                synchronized (OffHeapTaskManager.this) {
+                    int size = 0;
+                    for (int count : counts[type.ordinal()]) {
+                        size += count;
+                    }
+                    return size;
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized TaskPage page(TaskType type, int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive.");
+        }
+        List<Task> items = new ArrayList<>();
+        int id = Math.max(afterId, 0) + 1;
+        for (; id < nextId && items.size() < limit; id++) {
+            if (store.type(id) == type) {
+                items.add(viewOf(id, type));
+            }
+        }
+        boolean hasMore = false;
+        for (; id < nextId && !hasMore; id++) {
+            hasMore = store.type(id) == type;
+        }
+        int next = items.isEmpty() ? afterId : items.get(items.size() - 1).getId();
+        return new TaskPage(items, next, hasMore);
+    }
+
+    @Override
+    public synchronized int countByStatus(TaskType type, TaskStatus status) {
+        return counts[type.ordinal()][status.ordinal()];
+    }
+
+    @Override
+    public synchronized boolean contains(TaskType type, int id) {
+        return store.type(id) == type;
+    }
+
+    @Override
+    public synchronized List<Task> getByStatus(TaskType type, TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        for (int id = 1; id < nextId; id++) {
+            if (store.type(id) == type && store.status(id) == status) {
+                result.add(viewOf(id, type));
+            }
+        }
+        return result;
+    }
+
+    private Task load(int id, TaskType type) {
+        return store.type(id) == type ? viewOf(id, type) : null;
+    }
+
+    private Task viewOf(int id, TaskType type) {
+        switch (type) {
+            case EPIC:
+                return new EpicView(this, id);
+            case SUBTASK:
+                return new SubtaskView(this, id);
+            default:
+                return new TaskView(this, id);
+        }
+    }
+
+    private void put(Task task, TaskType type, int epicId) {
+        int id = task.getId();
+        remember(id);
+        if (store.contains(id)) {
+            unlink(id);
+        }
+        TaskStatus status = task.getStatus();
+        if (type == TaskType.EPIC) {
+            EpicLinks epic = links.get(id);
+            status = epic == null ? TaskStatus.NEW : epic.status();
+            task.setStatus(status);
+        }
+        store.write(id, type, status, epicId, task.getName(), task.getDescription());
+        counts[type.ordinal()][status.ordinal()]++;
+        if (type == TaskType.SUBTASK) {
+            EpicLinks epic = links.get(epicId);
+            rememberLinks(epicId, epic);
+            if (epic == null) {
+                epic = new EpicLinks();
+                links.put(epicId, epic);
+            }
+            epic.add(id, status);
+            refreshEpic(epicId);
+        }
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    private void delete(int id) {
+        remember(id);
+        unlink(id);
+        store.delete(id);
+        historyManager.remove(id);
+    }
+
+    private void clear(TaskType type) {
+        for (int id = 1; id < nextId; id++) {
+            if (store.type(id) == type) {
+                remember(id);
+                unlink(id);
+                store.delete(id);
+            }
+        }
+    }
+
+    // Убирает текущую версию задачи из счётчиков и из подзадач её эпика.
+    private void unlink(int id) {
+        TaskType type = store.type(id);
+        TaskStatus status = store.status(id);
+        counts[type.ordinal()][status.ordinal()]--;
+        if (type == TaskType.SUBTASK) {
+            int epicId = store.epicId(id);
+            EpicLinks epic = links.get(epicId);
+            if (epic != null) {
+                rememberLinks(epicId, epic);
+                epic.remove(id, status);
+                refreshEpic(epicId);
+            }
+        }
+    }
+
+    private void refreshEpic(int epicId) {
+        if (store.type(epicId) != TaskType.EPIC) {
+            return;
+        }
+        EpicLinks epic = links.get(epicId);
+        TaskStatus status = epic == null ? TaskStatus.NEW : epic.status();
+        TaskStatus previous = store.status(epicId);
+        if (status != previous) {
+            remember(epicId);
+            counts[TaskType.EPIC.ordinal()][previous.ordinal()]--;
+            counts[TaskType.EPIC.ordinal()][status.ordinal()]++;
+            store.setStatus(epicId, status);
+        }
+    }
+
+    private void remember(int id) {
+        if (undo != null && !undo.slots.containsKey(id)) {
+            undo.slots.put(id, store.copySlot(id));
+        }
+    }
+
+    private void rememberLinks(int epicId, EpicLinks epic) {
+        if (undo != null && !undo.links.containsKey(epicId)) {
+            undo.links.put(epicId, epic == null ? null : epic.copy());
+        }
+    }
+
+    private void rollback(Undo state) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = state.counts[i].clone();
+        }
+        state.slots.forEach(store::restoreSlot);
+        state.links.forEach((epicId, epic) -> {
+            if (epic == null) {
+                links.remove(epicId);
+            } else {
+                links.put(epicId, epic);
+            }
+        });
+    }
+
+    private synchronized String readName(int id) {
+        return store.name(id);
+    }
+
+    private synchronized String readDescription(int id) {
+        return store.description(id);
+    }
+
+    private synchronized TaskStatus readStatus(int id) {
+        return store.status(id);
+    }
+
+    private synchronized int readEpicId(int id) {
+        return store.epicId(id);
+    }
+
+    private final class TypeIterator implements Iterator<Task> {
+        private final TaskType type;
+        private int next;
+
+        private TypeIterator(TaskType type) {
+            this.type = type;
+            this.next = advance(1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next > 0;
+        }
+
+        @Override
+        public Task next() {
+            if (next <= 0) {
+                throw new NoSuchElementException();
+            }
+            Task task = viewOf(next, type);
+            next = advance(next + 1);
+            return task;
+        }
+
+        private int advance(int from) {
+            synchronized (OffHeapTaskManager.this) {
+                for (int id = from; id < nextId; id++) {
+                    if (store.type(id) == type) {
+                        return id;
+                    }
+                }
+                return 0;
+            }
+        }
+    }
+
+    // Представления хранят только id и локальные изменения; остальное читается из слота.
+    // После удаления задачи показывают последние значения, пока арена строк не сжата,
+    // затем name и description читаются как null.
+    private static final class TaskView extends Task {
+        private final OffHeapTaskManager owner;
+        private TaskStatus status;
+        private String description;
+        private boolean descriptionChanged;
+
+        private TaskView(OffHeapTaskManager owner, int id) {
+            super(id, null, null);
+            this.owner = owner;
+        }
+
+        @Override
+        public String getName() {
+            return owner.readName(getId());
+        }
+
+        @Override
+        public String getDescription() {
+            return descriptionChanged ? description : owner.readDescription(getId());
+        }
+
+        @Override
+        public void setDescription(String description) {
+            this.description = description;
+            this.descriptionChanged = true;
+        }
+
+        @Override
+        public TaskStatus getStatus() {
+            return status != null ? status : owner.readStatus(getId());
+        }
+
+        @Override
+        public void setStatus(TaskStatus status) {
+            this.status = status;
+        }
+    }
+
+    private static final class EpicView extends Epic {
+        private final OffHeapTaskManager owner;
+        private String description;
+        private boolean descriptionChanged;
+
+        private EpicView(OffHeapTaskManager owner, int id) {
+            super(id, null, null);
+            this.owner = owner;
+        }
+
+        @Override
+        public String getName() {
+            return owner.readName(getId());
+        }
+
+        @Override
+        public String getDescription() {
+            return descriptionChanged ? description : owner.readDescription(getId());
+        }
+
+        @Override
+        public void setDescription(String description) {
+            this.description = description;
+            this.descriptionChanged = true;
+        }
+
+        // Статус эпика всегда считается хранилищем по подзадачам.
+        @Override
+        public TaskStatus getStatus() {
+            return owner.readStatus(getId());
+        }
+
+        @Override
+        public void setStatus(TaskStatus status) {
+        }
+    }
+
+    private static final class SubtaskView extends Subtask {
+        private final OffHeapTaskManager owner;
+        private TaskStatus status;
+        private String description;
+        private boolean descriptionChanged;
+        private int epicId;
+
+        private SubtaskView(OffHeapTaskManager owner, int id) {
+            super(null, null, 0);
+            setId(id);
+            this.owner = owner;
+        }
+
+        @Override
+        public String getName() {
+            return owner.readName(getId());
+        }
+
+        @Override
+        public String getDescription() {
+            return descriptionChanged ? description : owner.readDescription(getId());
+        }
+
+        @Override
+        public void setDescription(String description) {
+            this.description = description;
+            this.descriptionChanged = true;
+        }
+
+        @Override
+        public TaskStatus getStatus() {
+            return status != null ? status : owner.readStatus(getId());
+        }
+
+        @Override
+        public void setStatus(TaskStatus status) {
+            this.status = status;
+        }
+
+        @Override
+        public int getEpicId() {
+            return epicId != 0 ? epicId : owner.readEpicId(getId());
+        }
+
+        @Override
+        public void setEpicId(int epicId) {
+            this.epicId = epicId;
+        }
+    }
+
+    // Журнал отката пакета: прежние слоты и подзадачи затронутых эпиков.
+    private static final class Undo {
+        private final int[][] counts;
+        private final Map<Integer, byte[]> slots = new LinkedHashMap<>();
+        private final Map<Integer, EpicLinks> links = new LinkedHashMap<>();
+
+        private Undo(int[][] counts) {
+            this.counts = new int[counts.length][];
+            for (int i = 0; i < counts.length; i++) {
+                this.counts[i] = counts[i].clone();
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package taskmanager.managers;
+
+// Уведомления о записи на диск (для метрик). Может вызываться из потока BackgroundFlusher.
+public interface PersistenceListener {
+    void snapshotWritten(long bytes, long nanos);
+
+    void journalAppended(long bytes, long journalSize);
+}
@@ -0,0 +1,109 @@
+package taskmanager.managers;
+
+public final class PersistenceOptions {
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 100;
+
+    private final PersistenceMode mode;
+    private final SnapshotFormat format;
+    private final boolean background;
+    private final Durability durability;
+    private final long fsyncIntervalMillis;
+    private final long compactionBytes;
+    private final long compactionRecords;
+    private final IdAllocator idAllocator;
+
+    private PersistenceOptions(PersistenceMode mode, SnapshotFormat format, boolean background,
+                               Durability durability, long fsyncIntervalMillis) {
+        this(mode, format, background, durability, fsyncIntervalMillis, 0, 0, null);
+    }
+
+    private PersistenceOptions(PersistenceMode mode, SnapshotFormat format, boolean background,
+                               Durability durability, long fsyncIntervalMillis,
+                               long compactionBytes, long compactionRecords, IdAllocator idAllocator) {
+        if (fsyncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Fsync interval must be positive.");
+        }
+        if (compactionBytes < 0 || compactionRecords < 0) {
+            throw new IllegalArgumentException("Compaction thresholds must not be negative.");
+        }
+        this.mode = mode;
+        this.format = format;
+        this.background = background;
+        this.durability = durability;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.compactionBytes = compactionBytes;
+        this.compactionRecords = compactionRecords;
+        this.idAllocator = idAllocator;
+    }
+
+    // Запись в файл в потоке вызывающего, без fsync (поведение по умолчанию).
+    public static PersistenceOptions synchronous(PersistenceMode mode) {
+        return new PersistenceOptions(mode, SnapshotFormat.CSV, false, Durability.OS_BUFFERED,
+                DEFAULT_FSYNC_INTERVAL_MILLIS);
+    }
+
+    public static PersistenceOptions background(PersistenceMode mode, Durability durability) {
+        return background(mode, durability, DEFAULT_FSYNC_INTERVAL_MILLIS);
+    }
+
+    public static PersistenceOptions background(PersistenceMode mode, Durability durability,
+                                                long fsyncIntervalMillis) {
+        return new PersistenceOptions(mode, SnapshotFormat.CSV, true, durability, fsyncIntervalMillis);
+    }
+
+    // Формат, в котором пишется снимок; при загрузке формат определяется по содержимому файла.
+    public PersistenceOptions withFormat(SnapshotFormat format) {
+        return new PersistenceOptions(mode, format, background, durability, fsyncIntervalMillis,
+                compactionBytes, compactionRecords, idAllocator);
+    }
+
+    // Фоновое сжатие журнала: когда он больше maxBytes байт или maxRecords записей, журнал сворачивается в снимок.
+    // 0 - без ограничения по этому признаку; оба 0 - сжатия нет. Действует только в режиме JOURNAL.
+    public PersistenceOptions withCompaction(long maxBytes, long maxRecords) {
+        return new PersistenceOptions(mode, format, background, durability, fsyncIntervalMillis,
+                maxBytes, maxRecords, idAllocator);
+    }
+
+    // Источник id для новых задач, например BlockIdAllocator, общий для нескольких процессов.
+    public PersistenceOptions withIdAllocator(IdAllocator idAllocator) {
+        return new PersistenceOptions(mode, format, background, durability, fsyncIntervalMillis,
+                compactionBytes, compactionRecords, idAllocator);
+    }
+
+    public PersistenceMode getMode() {
+        return mode;
+    }
+
+    public SnapshotFormat getFormat() {
+        return format;
+    }
+
+    public boolean isBackground() {
+        return background;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public long getFsyncIntervalMillis() {
+        return fsyncIntervalMillis;
+    }
+
+    public long getCompactionBytes() {
+        return compactionBytes;
+    }
+
+    public long getCompactionRecords() {
+        return compactionRecords;
+    }
+
+    // null - id подряд в пределах менеджера.
+    public IdAllocator getIdAllocator() {
+        return idAllocator;
+    }
+
+    public boolean isCompacting() {
+        return mode == PersistenceMode.JOURNAL && (compactionBytes > 0 || compactionRecords > 0);
+    }
+}
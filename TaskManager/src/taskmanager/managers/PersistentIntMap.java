@@ -0,0 +1,169 @@
+package taskmanager.managers;
+
+import java.util.function.Consumer;
+
+// Неизменяемое отображение int -> значение (hash array mapped trie). put/remove возвращают новую версию,
+// копируя только путь от корня до изменённого узла (не больше 7 узлов по 32 ветви), остальное
+// общее со старой версией. Ключи - сами id, по 5 бит на уровень начиная с младших, поэтому
+// идущие подряд id заполняют узлы плотно. Старые версии держатся, пока на них есть ссылки.
+final class PersistentIntMap<V> {
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        Node node = root;
+        for (int shift = 0; node != null; shift += 5) {
+            int bit = bit(key, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[index(node.bitmap, bit)];
+            if (slot instanceof Entry) {
+                Entry entry = (Entry) slot;
+                return entry.key == key ? (V) entry.value : null;
+            }
+            node = (Node) slot;
+        }
+        return null;
+    }
+
+    PersistentIntMap<V> put(int key, V value) {
+        Entry entry = new Entry(key, value);
+        if (root == null) {
+            return new PersistentIntMap<>(new Node(bit(key, 0), new Object[]{entry}), 1);
+        }
+        boolean[] added = new boolean[1];
+        Node updated = put(root, entry, 0, added);
+        return new PersistentIntMap<>(updated, added[0] ? size + 1 : size);
+    }
+
+    PersistentIntMap<V> remove(int key) {
+        if (root == null || get(key) == null) {
+            return this;
+        }
+        return new PersistentIntMap<>(remove(root, key, 0), size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<? super V> action) {
+        if (root != null) {
+            forEach(root, (Consumer<Object>) action);
+        }
+    }
+
+    private static Node put(Node node, Entry entry, int shift, boolean[] added) {
+        int bit = bit(entry.key, shift);
+        int index = index(node.bitmap, bit);
+        if ((node.bitmap & bit) == 0) {
+            added[0] = true;
+            Object[] slots = new Object[node.slots.length + 1];
+            System.arraycopy(node.slots, 0, slots, 0, index);
+            slots[index] = entry;
+            System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+            return new Node(node.bitmap | bit, slots);
+        }
+        Object slot = node.slots[index];
+        Object replacement;
+        if (slot instanceof Node) {
+            replacement = put((Node) slot, entry, shift + 5, added);
+        } else if (((Entry) slot).key == entry.key) {
+            replacement = entry;
+        } else {
+            // Два ключа с общим префиксом уходят на уровень ниже.
+            added[0] = true;
+            replacement = split((Entry) slot, entry, shift + 5);
+        }
+        Object[] slots = node.slots.clone();
+        slots[index] = replacement;
+        return new Node(node.bitmap, slots);
+    }
+
+    private static Node split(Entry first, Entry second, int shift) {
+        int firstBit = bit(first.key, shift);
+        int secondBit = bit(second.key, shift);
+        if (firstBit == secondBit) {
+            return new Node(firstBit, new Object[]{split(first, second, shift + 5)});
+        }
+        Object[] slots = Integer.compareUnsigned(firstBit, secondBit) < 0
+                ? new Object[]{first, second}
+                : new Object[]{second, first};
+        return new Node(firstBit | secondBit, slots);
+    }
+
+    // Ключ точно есть. Узел с единственной записью схлопывается в родителя.
+    private static Node remove(Node node, int key, int shift) {
+        int bit = bit(key, shift);
+        int index = index(node.bitmap, bit);
+        Object slot = node.slots[index];
+        if (slot instanceof Node) {
+            Node child = remove((Node) slot, key, shift + 5);
+            if (child != null) {
+                Object[] slots = node.slots.clone();
+                slots[index] = child.slots.length == 1 && child.slots[0] instanceof Entry ? child.slots[0] : child;
+                return new Node(node.bitmap, slots);
+            }
+        }
+        if (node.slots.length == 1) {
+            return null;
+        }
+        Object[] slots = new Object[node.slots.length - 1];
+        System.arraycopy(node.slots, 0, slots, 0, index);
+        System.arraycopy(node.slots, index + 1, slots, index, slots.length - index);
+        return new Node(node.bitmap & ~bit, slots);
+    }
+
+    private static void forEach(Node node, Consumer<Object> action) {
+        for (Object slot : node.slots) {
+            if (slot instanceof Entry) {
+                action.accept(((Entry) slot).value);
+            } else {
+                forEach((Node) slot, action);
+            }
+        }
+    }
+
+    private static int bit(int key, int shift) {
+        return 1 << ((key >>> shift) & 31);
+    }
+
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        private Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    private static final class Entry {
+        private final int key;
+        private final Object value;
+
+        private Entry(int key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
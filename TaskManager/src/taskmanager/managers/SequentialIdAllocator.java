@@ -0,0 +1,40 @@
+package taskmanager.managers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// id подряд с 1 в пределах одного менеджера (поведение по умолчанию) или в заданном диапазоне.
+public class SequentialIdAllocator implements IdAllocator {
+    private final AtomicInteger next;
+    private final int last;
+
+    public SequentialIdAllocator() {
+        this(1, Integer.MAX_VALUE);
+    }
+
+    public SequentialIdAllocator(int first, int last) {
+        if (first <= 0 || last < first) {
+            throw new IllegalArgumentException("Invalid id range " + first + ".." + last + ".");
+        }
+        this.next = new AtomicInteger(first);
+        this.last = last;
+    }
+
+    @Override
+    public int nextId() {
+        int id = next.getAndIncrement();
+        if (id > last || id <= 0) {
+            throw new IllegalStateException("Id range ending at " + last + " is exhausted.");
+        }
+        return id;
+    }
+
+    @Override
+    public void reserve(int id) {
+        next.accumulateAndGet(id + 1, Math::max);
+    }
+
+    @Override
+    public void releaseFrom(int firstUnused) {
+        next.set(firstUnused);
+    }
+}
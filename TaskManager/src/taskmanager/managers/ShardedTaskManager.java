@@ -0,0 +1,450 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.*;
+
+import java.io.File;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Менеджер из N шардов - FileBackedTaskManager, каждый со своим файлом <file>.shard<i>.
+// Шарду i принадлежит диапазон id [i * range + 1, (i + 1) * range], поэтому шард находится по id
+// без таблицы. Задачи и эпики раскладываются по шардам по кругу, подзадачи создаются в шарде
+// своего эпика - статус эпика пересчитывается внутри одного шарда. Шарды независимы и работают
+// параллельно; история общая. Число шардов при загрузке должно совпадать с тем, с которым писали.
+// Запись в шард идёт под его монитором, а чтение - без него, поэтому хранилища шардов - ConcurrentIntMap;
+// подзадачи эпика лежат в обычной LinkedHashMap и читаются под монитором шарда.
+public class ShardedTaskManager implements TaskManager, AutoCloseable {
+    private static final int ISSUED_VERSIONS = 1024;
+
+    private final FileBackedTaskManager[] shards;
+    private final HistoryManager historyManager;
+    private final int range;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final long changesEpoch = ChangeLog.newEpoch();
+    // Версии шардов для недавно выданных ответов getChangesSince, по версии ответа.
+    private final Map<Long, long[]> issuedVersions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+            return size() > ISSUED_VERSIONS;
+        }
+    };
+
+    public ShardedTaskManager(File file, int shardCount, PersistenceOptions options) {
+        this(shardCount, Managers.getConcurrentHistory(), (i, history) ->
+                new FileBackedTaskManager(shardFile(file, i), withRange(options, i, shardCount), history,
+                        ConcurrentIntMap::new));
+    }
+
+    private ShardedTaskManager(int shardCount, HistoryManager historyManager, ShardFactory factory) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive.");
+        }
+        this.historyManager = historyManager;
+        this.range = Integer.MAX_VALUE / shardCount;
+        this.shards = new FileBackedTaskManager[shardCount];
+        // Шарды читают свои файлы параллельно в ForkJoinPool.commonPool().
+        IntStream.range(0, shardCount).parallel()
+                .forEach(i -> shards[i] = factory.create(i, historyManager));
+    }
+
+    // Загрузка шардов параллельно; каждый проверяет, что его id лежат в его диапазоне.
+    public static ShardedTaskManager loadFromFile(File file, int shardCount, PersistenceOptions options) {
+        return new ShardedTaskManager(shardCount, Managers.getConcurrentHistory(), (i, history) -> {
+            FileBackedTaskManager shard = FileBackedTaskManager.loadFromFile(shardFile(file, i),
+                    withRange(options, i, shardCount), history, ConcurrentIntMap::new);
+            checkRange(shard, i, shardCount, shardFile(file, i));
+            return shard;
+        });
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public HistoryManager getHistoryManager() {
+        return historyManager;
+    }
+
+    private static File shardFile(File file, int shard) {
+        return new File(file.getPath() + ".shard" + shard);
+    }
+
+    private static PersistenceOptions withRange(PersistenceOptions options, int shard, int shardCount) {
+        int range = Integer.MAX_VALUE / shardCount;
+        return options.withIdAllocator(new SequentialIdAllocator(shard * range + 1, (shard + 1) * range));
+    }
+
+    private static void checkRange(FileBackedTaskManager shard, int index, int shardCount, File file) {
+        int range = Integer.MAX_VALUE / shardCount;
+        for (TaskType type : TaskType.values()) {
+            shard.forEach(type, task -> {
+                if ((task.getId() - 1) / range != index) {
+                    throw new IllegalStateException("Task " + task.getId() + " in " + file
+                            + " is outside the shard id range; the data was written with a different shard count.");
+                }
+            });
+        }
+    }
+
+    private FileBackedTaskManager shardOf(int id) {
+        int index = id <= 0 ? 0 : (id - 1) / range;
+        return shards[Math.min(index, shards.length - 1)];
+    }
+
+    private FileBackedTaskManager nextShard() {
+        return shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)];
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return shardOf(id).getTask(id);
+    }
+
+    @Override
+    public Task getSubtask(int id) {
+        return shardOf(id).getSubtask(id);
+    }
+
+    @Override
+    public Task getEpic(int id) {
+        return shardOf(id).getEpic(id);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return new ArrayList<>(view(TaskType.TASK));
+    }
+
+    @Override
+    public List<Task> getEpics() {
+        return new ArrayList<>(view(TaskType.EPIC));
+    }
+
+    @Override
+    public List<Task> getSubtasks() {
+        return new ArrayList<>(view(TaskType.SUBTASK));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        FileBackedTaskManager shard = shardOf(epicId);
+        synchronized (shard) {
+            return shard.getSubtasksByEpic(epicId);
+        }
+    }
+
+    // История общая для всех шардов, слияние не нужно.
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        return nextShard().addNewTask(task);
+    }
+
+    @Override
+    public int addNewEpic(Epic epic) {
+        return nextShard().addNewEpic(epic);
+    }
+
+    @Override
+    public int addNewSubtask(Subtask subtask) {
+        return shardOf(subtask.getEpicId()).addNewSubtask(subtask);
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        shardOf(task.getId()).updateTask(task);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        shardOf(epic.getId()).updateEpic(epic);
+    }
+
+    // id подзадачи закреплён за шардом эпика, поэтому перенос в эпик другого шарда не поддерживается.
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        FileBackedTaskManager shard = shardOf(subtask.getId());
+        if (shard != shardOf(subtask.getEpicId())) {
+            throw new IllegalArgumentException("Subtask " + subtask.getId() + " cannot move to epic "
+                    + subtask.getEpicId() + " in another shard.");
+        }
+        shard.updateSubtask(subtask);
+    }
+
+    @Override
+    public void removeTask(int id) {
+        shardOf(id).removeTask(id);
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        shardOf(id).removeEpic(id);
+    }
+
+    @Override
+    public void removeSubtask(int id) {
+        shardOf(id).removeSubtask(id);
+    }
+
+    // Последовательно: внутри пакета мониторы шардов держит вызывающий поток.
+    @Override
+    public void removeAllTasks() {
+        for (FileBackedTaskManager shard : shards) {
+            shard.removeAllTasks();
+        }
+    }
+
+    @Override
+    public void removeAllEpics() {
+        for (FileBackedTaskManager shard : shards) {
+            shard.removeAllEpics();
+        }
+    }
+
+    @Override
+    public void removeAllSubtasks() {
+        for (FileBackedTaskManager shard : shards) {
+            shard.removeAllSubtasks();
+        }
+    }
+
+    // Представления шардов подряд, без копирования. Шарды упорядочены по диапазонам id.
+    @Override
+    public Collection<Task> view(TaskType type) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                return new Iterator<>() {
+                    private int shard;
+                    private Iterator<Task> current = Collections.emptyIterator();
+
+                    @Override
+                    public boolean hasNext() {
+                        while (!current.hasNext() && shard < shards.length) {
+                            current = shards[shard++].view(type).iterator();
+                        }
+                        return current.hasNext();
+                    }
+
+                    @Override
+                    public Task next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return current.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (FileBackedTaskManager shard : shards) {
+                    size += shard.view(type).size();
+                }
+                return size;
+            }
+        };
+    }
+
+    // Живое представление подзадач эпика небезопасно для других потоков - отдаётся копия.
+    @Override
+    public Collection<Subtask> viewSubtasksByEpic(int epicId) {
+        return Collections.unmodifiableList(getSubtasksByEpic(epicId));
+    }
+
+    @Override
+    public Stream<Task> stream(TaskType type) {
+        return Arrays.stream(shards).flatMap(shard -> shard.stream(type));
+    }
+
+    @Override
+    public void forEach(TaskType type, Consumer<? super Task> action) {
+        for (FileBackedTaskManager shard : shards) {
+            shard.forEach(type, action);
+        }
+    }
+
+    // Диапазоны шардов идут по возрастанию id: страница добирается из следующих шардов.
+    @Override
+    public TaskPage page(TaskType type, int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive.");
+        }
+        List<Task> items = new ArrayList<>(limit);
+        int cursor = Math.max(afterId, 0);
+        boolean hasMore = false;
+        for (int i = Math.min(cursor / range, shards.length - 1); i < shards.length; i++) {
+            TaskPage page = shards[i].page(type, Math.max(cursor, i * range), limit - items.size());
+            items.addAll(page.getItems());
+            if (items.size() == limit) {
+                hasMore = page.hasMore() || hasAnyAfter(type, i);
+                break;
+            }
+        }
+        int next = items.isEmpty() ? afterId : items.get(items.size() - 1).getId();
+        return new TaskPage(items, next, hasMore);
+    }
+
+    private boolean hasAnyAfter(TaskType type, int shard) {
+        for (int i = shard + 1; i < shards.length; i++) {
+            if (!shards[i].view(type).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(TaskType type, int id) {
+        return shardOf(id).contains(type, id);
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        for (FileBackedTaskManager shard : shards) {
+            result.addAll(shard.getByStatus(type, status));
+        }
+        return result;
+    }
+
+    @Override
+    public int countByStatus(TaskType type, TaskStatus status) {
+        int count = 0;
+        for (FileBackedTaskManager shard : shards) {
+            count += shard.countByStatus(type, status);
+        }
+        return count;
+    }
+
+    @Override
+    public List<Task> searchAll(String query, int limit) {
+        return interleave(Arrays.stream(shards).map(shard -> shard.searchAll(query, limit)).toList(), limit);
+    }
+
+    @Override
+    public List<Task> searchAny(String query, int limit) {
+        return interleave(Arrays.stream(shards).map(shard -> shard.searchAny(query, limit)).toList(), limit);
+    }
+
+    // Оценки релевантности у шардов свои, поэтому лучшие результаты шардов берутся по очереди.
+    private static List<Task> interleave(List<List<Task>> results, int limit) {
+        List<Task> merged = new ArrayList<>();
+        for (int rank = 0; merged.size() < limit; rank++) {
+            boolean found = false;
+            for (List<Task> result : results) {
+                if (rank < result.size() && merged.size() < limit) {
+                    merged.add(result.get(rank));
+                    found = true;
+                }
+            }
+            if (!found) {
+                break;
+            }
+        }
+        return merged;
+    }
+
+    // Версия ответа - сумма счётчиков версий шардов со своей эпохой в старших битах (как в ChangeLog:
+    // версия до перезапуска не совпадёт по эпохе). Счётчик шарда только растёт, поэтому равная сумма у ответов,
+    // выданных один за другим, означает те же версии шардов; по ней они и находятся среди недавно выданных.
+    // Неизвестная (или вытесненная) версия - полный список. Если шард отвечает полным списком,
+    // полный список берётся и у остальных: иначе удаления в них потерялись бы.
+    @Override
+    public TaskChanges getChangesSince(long version) {
+        long[] since = version == 0 ? null : issuedVersions(version);
+        TaskChanges[] deltas = new TaskChanges[shards.length];
+        boolean full = since == null;
+        for (int i = 0; i < shards.length; i++) {
+            deltas[i] = full ? shards[i].getChangesSince(0) : shards[i].changesAfter(since[i]);
+            full |= deltas[i].isFull();
+        }
+        long[] versions = new long[shards.length];
+        List<Task> changed = new ArrayList<>();
+        IntSet removed = new IntSet();
+        for (int i = 0; i < shards.length; i++) {
+            if (full && !deltas[i].isFull()) {
+                deltas[i] = shards[i].getChangesSince(0);
+            }
+            versions[i] = deltas[i].getVersion();
+            changed.addAll(deltas[i].getChanged());
+            for (int id : deltas[i].getRemovedIds()) {
+                removed.add(id);
+            }
+        }
+        return new TaskChanges(issue(versions), full, changed, removed.toArray());
+    }
+
+    private long[] issuedVersions(long version) {
+        synchronized (issuedVersions) {
+            return issuedVersions.get(version);
+        }
+    }
+
+    // Параллельные вызовы могут снять версии шардов в разном порядке и получить ту же сумму при разных
+    // версиях - тогда запоминается наименьшая по каждому шарду: лишние изменения повторно применить безопасно.
+    private long issue(long[] versions) {
+        long sum = changesEpoch;
+        for (long shardVersion : versions) {
+            sum += ChangeLog.counter(shardVersion);
+        }
+        synchronized (issuedVersions) {
+            long[] existing = issuedVersions.get(sum);
+            if (existing != null && !Arrays.equals(existing, versions)) {
+                long[] merged = new long[versions.length];
+                for (int i = 0; i < merged.length; i++) {
+                    merged[i] = Math.min(existing[i], versions[i]);
+                }
+                versions = merged;
+            }
+            issuedVersions.put(sum, versions);
+        }
+        return sum;
+    }
+
+    // Пакет открывается во всех шардах по порядку (одинаковый порядок - без взаимных блокировок)
+    // и откатывается во всех при ошибке. Фиксация идёт по шардам: при сбое диска посреди неё
+    // часть шардов может сохранить пакет, а часть нет.
+    @Override
+    public void batch(Consumer<TaskManager> operations) {
+        batchFrom(0, operations);
+    }
+
+    private void batchFrom(int shard, Consumer<TaskManager> operations) {
+        if (shard == shards.length) {
+            operations.accept(this);
+            return;
+        }
+        shards[shard].batch(tx -> batchFrom(shard + 1, operations));
+    }
+
+    public void flush() {
+        Arrays.stream(shards).parallel().forEach(FileBackedTaskManager::flush);
+    }
+
+    @Override
+    public void close() {
+        Arrays.stream(shards).parallel().forEach(FileBackedTaskManager::close);
+    }
+
+    private interface ShardFactory {
+        FileBackedTaskManager create(int shard, HistoryManager historyManager);
+    }
+}
@@ -0,0 +1,30 @@
+package taskmanager.managers;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+// Последняя версия TaskSnapshot. Писатели заменяют её под монитором, читатели берут ссылку без блокировки.
+final class SnapshotRoot {
+    private volatile TaskSnapshot current;
+
+    SnapshotRoot(TaskSnapshot initial) {
+        this.current = initial;
+    }
+
+    TaskSnapshot current() {
+        return current;
+    }
+
+    synchronized void apply(UnaryOperator<TaskSnapshot> change) {
+        current = change.apply(current);
+    }
+
+    // Все изменения пакета становятся видны разом.
+    synchronized void apply(List<UnaryOperator<TaskSnapshot>> changes) {
+        TaskSnapshot next = current;
+        for (UnaryOperator<TaskSnapshot> change : changes) {
+            next = change.apply(next);
+        }
+        current = next;
+    }
+}
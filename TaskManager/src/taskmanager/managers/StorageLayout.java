@@ -0,0 +1,6 @@
+package taskmanager.managers;
+
+public enum StorageLayout {
+    HASHED,
+    DENSE
+}
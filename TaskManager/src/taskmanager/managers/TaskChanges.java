@@ -0,0 +1,39 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.Task;
+
+import java.util.List;
+
+// Ответ getChangesSince: изменённые задачи и id удалённых после запрошенной версии.
+// version передаётся в следующий вызов. Если full, в changed - всё содержимое менеджера,
+// и клиент должен заменить свою копию целиком (запрошенная версия слишком старая или неизвестна).
+// Удаления применяются раньше изменений: id, удалённый и созданный заново, окажется в обоих списках.
+public class TaskChanges {
+    private final long version;
+    private final boolean full;
+    private final List<Task> changed;
+    private final int[] removedIds;
+
+    public TaskChanges(long version, boolean full, List<Task> changed, int[] removedIds) {
+        this.version = version;
+        this.full = full;
+        this.changed = changed;
+        this.removedIds = removedIds;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public List<Task> getChanged() {
+        return changed;
+    }
+
+    public int[] getRemovedIds() {
+        return removedIds;
+    }
+}
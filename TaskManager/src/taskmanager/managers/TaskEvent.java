@@ -0,0 +1,88 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.*;
+
+// Событие изменения задачи. Неизменяемое: поля задачи копируются в момент изменения,
+// поэтому подписчик из другого потока видит именно ту версию, которая была записана.
+public final class TaskEvent {
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        REMOVED,
+        EPIC_STATUS_CHANGED
+    }
+
+    private final Kind kind;
+    private final TaskType type;
+    private final int id;
+    private final String name;
+    private final String description;
+    private final TaskStatus status;
+    private final TaskStatus previousStatus;
+    private final int epicId;
+
+    private TaskEvent(Kind kind, Task task, TaskStatus previousStatus) {
+        this.kind = kind;
+        this.type = task instanceof Epic ? TaskType.EPIC
+                : task instanceof Subtask ? TaskType.SUBTASK : TaskType.TASK;
+        this.id = task.getId();
+        this.name = task.getName();
+        this.description = task.getDescription();
+        this.status = task.getStatus();
+        this.previousStatus = previousStatus;
+        this.epicId = task instanceof Subtask ? ((Subtask) task).getEpicId() : 0;
+    }
+
+    static TaskEvent of(Kind kind, Task task) {
+        return new TaskEvent(kind, task, null);
+    }
+
+    static TaskEvent epicStatusChanged(Epic epic, TaskStatus previousStatus) {
+        return new TaskEvent(Kind.EPIC_STATUS_CHANGED, epic, previousStatus);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    // Только для EPIC_STATUS_CHANGED, иначе null.
+    public TaskStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    // Только для подзадач, иначе 0.
+    public int getEpicId() {
+        return epicId;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent{" +
+                "kind=" + kind +
+                ", type=" + type +
+                ", id=" + id +
+                ", status=" + status +
+                (previousStatus == null ? "" : ", previousStatus=" + previousStatus) +
+                '}';
+    }
+}
@@ -0,0 +1,100 @@
+package taskmanager.managers;
+
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Кольцевой буфер событий фиксированной ёмкости. Писатели никогда не ждут читателей:
+// новое событие затирает самое старое. У каждого подписчика свой курсор; подписчик,
+// отставший больше чем на ёмкость буфера, отключается и должен перечитать состояние целиком.
+public class TaskEventRing {
+    private final TaskEvent[] slots;
+    private final int mask;
+    // Номер следующего события; события с номерами [published - capacity, published) лежат в буфере.
+    private volatile long published;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private int waiting;
+
+    public TaskEventRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Event ring capacity must be a power of two.");
+        }
+        slots = new TaskEvent[capacity];
+        mask = capacity - 1;
+    }
+
+    // Подписчик получает только события, опубликованные после подписки.
+    public TaskEventSubscription subscribe() {
+        subscribers.incrementAndGet();
+        return new TaskEventSubscription(this, published);
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    // Без подписчиков менеджер не создаёт события вовсе.
+    boolean hasSubscribers() {
+        return subscribers.get() > 0;
+    }
+
+    void unsubscribe() {
+        subscribers.decrementAndGet();
+    }
+
+    synchronized void publish(TaskEvent event) {
+        long sequence = published;
+        slots[(int) sequence & mask] = event;
+        published = sequence + 1;
+        if (waiting > 0) {
+            notifyAll();
+        }
+    }
+
+    // Чтение без блокировки: ссылки копируются, затем проверяется, что писатели за это время
+    // не дошли до этих ячеек на следующем круге. Возвращает номер следующего непрочитанного события
+    // или -1, если событие from уже затёрто. Одна ячейка в запасе - под запись, которая идёт прямо сейчас.
+    long read(long from, int max, List<TaskEvent> batch) {
+        long available = published;
+        if (from <= available - slots.length) {
+            return -1;
+        }
+        long end = Math.min(available, from + max);
+        for (long sequence = from; sequence < end; sequence++) {
+            batch.add(slots[(int) sequence & mask]);
+        }
+        VarHandle.acquireFence();
+        if (from <= published - slots.length) {
+            batch.clear();
+            return -1;
+        }
+        return end;
+    }
+
+    // Ждёт события с номером sequence не дольше nanos; false, если время вышло.
+    synchronized boolean await(long sequence, long nanos) throws InterruptedException {
+        long deadline = System.nanoTime() + nanos;
+        waiting++;
+        try {
+            while (published <= sequence) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            }
+            return true;
+        } finally {
+            waiting--;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package taskmanager.managers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Курсор одного подписчика в TaskEventRing. Рассчитан на один читающий поток.
+// Если подписчик отстал больше чем на ёмкость буфера, он отключается: poll бросает IllegalStateException,
+// и подписчику нужно перечитать состояние менеджера и подписаться заново.
+public class TaskEventSubscription implements AutoCloseable {
+    private final TaskEventRing ring;
+    private long cursor;
+    private boolean dropped;
+    private boolean closed;
+
+    TaskEventSubscription(TaskEventRing ring, long cursor) {
+        this.ring = ring;
+        this.cursor = cursor;
+    }
+
+    // Пачка из не более чем maxBatch событий по порядку; пустой список, если новых событий нет.
+    public List<TaskEvent> poll(int maxBatch) {
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        if (dropped) {
+            throw droppedError();
+        }
+        if (closed) {
+            throw new IllegalStateException("Subscription is closed.");
+        }
+        List<TaskEvent> batch = new ArrayList<>(Math.min(maxBatch, 64));
+        long next = ring.read(cursor, maxBatch, batch);
+        if (next < 0) {
+            dropped = true;
+            close();
+            throw droppedError();
+        }
+        cursor = next;
+        return batch;
+    }
+
+    // Как poll(maxBatch), но при отсутствии событий ждёт первое из них не дольше timeout.
+    public List<TaskEvent> poll(int maxBatch, long timeout, TimeUnit unit) throws InterruptedException {
+        List<TaskEvent> batch = poll(maxBatch);
+        if (batch.isEmpty() && ring.await(cursor, unit.toNanos(timeout))) {
+            batch = poll(maxBatch);
+        }
+        return batch;
+    }
+
+    // Номер следующего события, которое получит подписчик.
+    public long getCursor() {
+        return cursor;
+    }
+
+    public long getLag() {
+        return ring.getPublished() - cursor;
+    }
+
+    public boolean isDropped() {
+        return dropped;
+    }
+
+    private IllegalStateException droppedError() {
+        return new IllegalStateException(
+                "Subscriber fell behind by more than " + ring.getCapacity() + " events and was dropped.");
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            ring.unsubscribe();
+        }
+    }
+}
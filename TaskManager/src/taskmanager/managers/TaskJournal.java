@@ -0,0 +1,207 @@
+package taskmanager.managers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+// Журнал изменений: одна строка на каждую мутацию, дописывается в конец файла.
+class TaskJournal implements AutoCloseable {
+    private final Path path;
+    private FileChannel channel;
+    // -1 - ещё не известен; читается и из других потоков (метрики)
+    private volatile long size = -1;
+    // Число записей в текущем файле: считается при append, после загрузки задаётся через restored.
+    private volatile long records;
+
+    TaskJournal(Path path) {
+        this.path = path;
+    }
+
+    // Возвращает число записанных байт.
+    int append(String record) {
+        int bytes = write(ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8)));
+        records++;
+        return bytes;
+    }
+
+    int append(List<String> records) {
+        StringBuilder sb = new StringBuilder();
+        for (String record : records) {
+            sb.append(record).append("\n");
+        }
+        int bytes = write(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        this.records += records.size();
+        return bytes;
+    }
+
+    long records() {
+        return records;
+    }
+
+    void restored(long records) {
+        this.records = records;
+    }
+
+    // Закрывает текущий файл и переименовывает его в sealed; следующая запись начнёт новый файл.
+    void rotate(Path sealed) {
+        close();
+        try {
+            if (Files.exists(path)) {
+                Files.move(path, sealed, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error rotating journal " + path, e);
+        }
+        size = 0;
+        records = 0;
+    }
+
+    // Текущий размер файла журнала в байтах.
+    long size() {
+        if (size < 0) {
+            try {
+                size = Files.exists(path) ? Files.size(path) : 0;
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error reading journal size " + path, e);
+            }
+        }
+        return size;
+    }
+
+    void force() {
+        try {
+            channel().force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error syncing journal " + path, e);
+        }
+    }
+
+    private int write(ByteBuffer buffer) {
+        try {
+            FileChannel channel = channel();
+            int bytes = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            size = channel.size();
+            return bytes;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error appending to journal " + path, e);
+        }
+    }
+
+    void truncate() {
+        if (channel == null && !Files.exists(path)) {
+            return;
+        }
+        try {
+            channel().truncate(0);
+            size = 0;
+            records = 0;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error truncating journal " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error closing journal " + path, e);
+        } finally {
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    // Недописанная последняя строка (сбой во время записи) пропускается; её байты остаются в файле,
+    // поэтому перед дозаписью файл обрезается до Replayed.end (truncate). Строки режутся по байту '\n' -
+    // в UTF-8 он не встречается внутри многобайтовых символов.
+    static Replayed replay(Path path, RecordConsumer consumer) {
+        if (!Files.exists(path)) {
+            return new Replayed(0, 0);
+        }
+        long replayed = 0;
+        long position = 0;
+        long end = 0;
+        long start = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] chunk = new byte[8192];
+            byte[] line = new byte[256];
+            int length = 0;
+            int read;
+            while ((read = in.read(chunk)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    position++;
+                    if (chunk[i] != '\n') {
+                        if (length == line.length) {
+                            line = Arrays.copyOf(line, length * 2);
+                        }
+                        line[length++] = chunk[i];
+                        continue;
+                    }
+                    if (length > 0) {
+                        consumer.accept(new String(line, 0, length, StandardCharsets.UTF_8), start);
+                        replayed++;
+                        length = 0;
+                    }
+                    end = position;
+                    start = position;
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error reading journal " + path, e);
+        }
+        return new Replayed(replayed, end);
+    }
+
+    // Отрезает хвост файла после length (недописанную запись), если он есть.
+    static void truncate(Path path, long length) {
+        try {
+            if (!Files.exists(path) || Files.size(path) <= length) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error truncating journal " + path, e);
+        }
+    }
+
+    // Запись журнала и смещение её начала в файле.
+    interface RecordConsumer {
+        void accept(String record, long offset);
+    }
+
+    // Итог replay: число применённых записей и длина файла до конца последней целой записи.
+    static final class Replayed {
+        final long records;
+        final long end;
+
+        Replayed(long records, long end) {
+            this.records = records;
+            this.end = end;
+        }
+    }
+}
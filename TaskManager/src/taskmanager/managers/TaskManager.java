@@ -2,7 +2,16 @@ package taskmanager.managers;
 
 import taskmanager.tasks.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface TaskManager {
     Task getTask(int id);
@@ -37,4 +46,103 @@ public interface TaskManager {
     void removeAllEpics();
     
     void removeAllSubtasks();
+
+    // Представление только для чтения. Здесь - копия на момент вызова; менеджеры со своим хранилищем
+    // переопределяют его живым представлением без копирования, которое отражает последующие изменения.
+    default Collection<Task> view(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return Collections.unmodifiableList(getEpics());
+            case SUBTASK:
+                return Collections.unmodifiableList(getSubtasks());
+            default:
+                return Collections.unmodifiableList(getTasks());
+        }
+    }
+
+    default Collection<Subtask> viewSubtasksByEpic(int epicId) {
+        return Collections.unmodifiableList(getSubtasksByEpic(epicId));
+    }
+
+    default Stream<Task> stream(TaskType type) {
+        return view(type).stream();
+    }
+
+    default void forEach(TaskType type, Consumer<? super Task> action) {
+        view(type).forEach(action);
+    }
+
+    // Постраничный обход по возрастанию id: первая страница - afterId = 0, дальше - getNextCursor().
+    default TaskPage page(TaskType type, int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive.");
+        }
+        List<Task> items = stream(type)
+                .filter(task -> task.getId() > afterId)
+                .sorted(Comparator.comparingInt(Task::getId))
+                .limit(limit + 1L)
+                .collect(Collectors.toCollection(ArrayList::new));
+        boolean hasMore = items.size() > limit;
+        if (hasMore) {
+            items.remove(limit);
+        }
+        int next = items.isEmpty() ? afterId : items.get(items.size() - 1).getId();
+        return new TaskPage(items, next, hasMore);
+    }
+
+    // Есть ли задача с таким id и типом. В отличие от getTask/getEpic/getSubtask не пишет в историю просмотров.
+    default boolean contains(TaskType type, int id) {
+        List<Task> items = page(type, id - 1, 1).getItems();
+        return !items.isEmpty() && items.get(0).getId() == id;
+    }
+
+    default List<Task> getByStatus(TaskType type, TaskStatus status) {
+        return stream(type)
+                .filter(task -> task.getStatus() == status)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    default int countByStatus(TaskType type, TaskStatus status) {
+        return (int) stream(type).filter(task -> task.getStatus() == status).count();
+    }
+
+    // Поиск по словам в названии и описании, слово запроса совпадает как префикс.
+    // searchAll - нужны все слова (AND), searchAny - хотя бы одно (OR). Не больше limit задач, лучшие первыми.
+    default List<Task> searchAll(String query, int limit) {
+        return search(query, true, limit);
+    }
+
+    default List<Task> searchAny(String query, int limit) {
+        return search(query, false, limit);
+    }
+
+    // Без собственного индекса: строится временный по всем задачам.
+    private List<Task> search(String query, boolean matchAll, int limit) {
+        TextIndex index = new TextIndex();
+        Map<Integer, Task> byId = new HashMap<>();
+        for (TaskType type : TaskType.values()) {
+            forEach(type, task -> {
+                index.add(task);
+                byId.put(task.getId(), task);
+            });
+        }
+        List<Task> result = new ArrayList<>();
+        for (int id : index.search(query, matchAll, limit)) {
+            result.add(byId.get(id));
+        }
+        return result;
+    }
+
+    // Синхронизация клиента: задачи, изменённые после version, и id удалённых; version ответа - для следующего
+    // вызова. Первый вызов - с 0. Без собственного журнала изменений - всегда полный список.
+    default TaskChanges getChangesSince(long version) {
+        List<Task> all = new ArrayList<>();
+        for (TaskType type : TaskType.values()) {
+            forEach(type, all::add);
+        }
+        return new TaskChanges(0, true, all, new int[0]);
+    }
+
+    // Атомарный пакет операций: tx -> { tx.addNewSubtask(...); ... }.
+    void batch(Consumer<TaskManager> operations);
 }
@@ -0,0 +1,32 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.Task;
+
+import java.util.List;
+
+// Страница выборки по возрастанию id. nextCursor передаётся в следующий вызов page(...);
+// курсор - это id, поэтому изменения между запросами не сдвигают страницы.
+public class TaskPage {
+    private final List<Task> items;
+    private final int nextCursor;
+    private final boolean hasMore;
+
+    public TaskPage(List<Task> items, int nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<Task> getItems() {
+        return items;
+    }
+
+    public int getNextCursor() {
+        return nextCursor;
+    }
+
+    // true, если за курсором ещё могут быть записи (следующая страница может оказаться пустой).
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,121 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+// Согласованное состояние менеджера на момент snapshot(): задачи, эпики и подзадачи в неизменяемых
+// деревьях PersistentIntMap. Снимок не меняется и не мешает писателям; ненужные версии собирает GC.
+// Объекты в снимке - копии, общие для всех снимков: менять их нельзя. Эпики в снимке без подзадач,
+// подзадачи эпика - через getSubtasksByEpic.
+public final class TaskSnapshot {
+    static final TaskSnapshot EMPTY = new TaskSnapshot(
+            PersistentIntMap.empty(), PersistentIntMap.empty(), PersistentIntMap.empty());
+
+    private final PersistentIntMap<Task> tasks;
+    private final PersistentIntMap<Epic> epics;
+    private final PersistentIntMap<Subtask> subtasks;
+
+    private TaskSnapshot(PersistentIntMap<Task> tasks, PersistentIntMap<Epic> epics,
+                         PersistentIntMap<Subtask> subtasks) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+    }
+
+    public Task getTask(int id) {
+        return tasks.get(id);
+    }
+
+    public Epic getEpic(int id) {
+        return epics.get(id);
+    }
+
+    public Subtask getSubtask(int id) {
+        return subtasks.get(id);
+    }
+
+    public List<Task> getTasks() {
+        return list(TaskType.TASK);
+    }
+
+    public List<Task> getEpics() {
+        return list(TaskType.EPIC);
+    }
+
+    public List<Task> getSubtasks() {
+        return list(TaskType.SUBTASK);
+    }
+
+    // Обход всех подзадач снимка.
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        List<Subtask> result = new ArrayList<>();
+        subtasks.forEach(subtask -> {
+            if (subtask.getEpicId() == epicId) {
+                result.add(subtask);
+            }
+        });
+        return result;
+    }
+
+    public int size(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return epics.size();
+            case SUBTASK:
+                return subtasks.size();
+            default:
+                return tasks.size();
+        }
+    }
+
+    public void forEach(TaskType type, Consumer<? super Task> action) {
+        switch (type) {
+            case EPIC:
+                epics.forEach(action);
+                break;
+            case SUBTASK:
+                subtasks.forEach(action);
+                break;
+            default:
+                tasks.forEach(action);
+        }
+    }
+
+    private List<Task> list(TaskType type) {
+        List<Task> result = new ArrayList<>(size(type));
+        forEach(type, result::add);
+        return result;
+    }
+
+    // Изменение снимка для записи в менеджере. Копия задачи снимается сразу, а не при применении.
+    static UnaryOperator<TaskSnapshot> putting(Task task) {
+        if (task instanceof Epic) {
+            Epic copy = new Epic((Epic) task);
+            return snapshot -> new TaskSnapshot(snapshot.tasks, snapshot.epics.put(copy.getId(), copy),
+                    snapshot.subtasks);
+        }
+        if (task instanceof Subtask) {
+            Subtask copy = new Subtask((Subtask) task);
+            return snapshot -> new TaskSnapshot(snapshot.tasks, snapshot.epics,
+                    snapshot.subtasks.put(copy.getId(), copy));
+        }
+        Task copy = new Task(task);
+        return snapshot -> new TaskSnapshot(snapshot.tasks.put(copy.getId(), copy), snapshot.epics,
+                snapshot.subtasks);
+    }
+
+    static UnaryOperator<TaskSnapshot> removing(Task task) {
+        int id = task.getId();
+        if (task instanceof Epic) {
+            return snapshot -> new TaskSnapshot(snapshot.tasks, snapshot.epics.remove(id), snapshot.subtasks);
+        }
+        if (task instanceof Subtask) {
+            return snapshot -> new TaskSnapshot(snapshot.tasks, snapshot.epics, snapshot.subtasks.remove(id));
+        }
+        return snapshot -> new TaskSnapshot(snapshot.tasks.remove(id), snapshot.epics, snapshot.subtasks);
+    }
+}
@@ -0,0 +1,353 @@
+package taskmanager.managers;
+
+import taskmanager.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Инвертированный индекс по названию и описанию. Термы - слова из букв и цифр в нижнем регистре,
+// словарь отсортирован (TreeMap), поэтому слово запроса ищется как префикс: "кот" находит "котик".
+// Списки id по терму - отсортированные int[]: новые id больше прежних, поэтому обычно это дописывание в конец.
+final class TextIndex {
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int EXACT_BONUS = 1;
+    // Документы разложены по частям по id, у каждой части свой монитор: запись в разные части
+    // (полосы ConcurrentTaskManager) идёт параллельно, поиск обходит все части.
+    private static final int PARTITIONS = 8;
+
+    private final Partition[] partitions = new Partition[PARTITIONS];
+
+    TextIndex() {
+        for (int i = 0; i < PARTITIONS; i++) {
+            partitions[i] = new Partition();
+        }
+    }
+
+    void add(Task task) {
+        partitions[task.getId() & (PARTITIONS - 1)].add(task);
+    }
+
+    void remove(int id) {
+        partitions[id & (PARTITIONS - 1)].remove(id);
+    }
+
+    boolean isEmpty() {
+        for (Partition partition : partitions) {
+            if (!partition.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // id найденных задач по убыванию релевантности. matchAll - каждое слово запроса
+    // должно найтись (AND), иначе хотя бы одно (OR).
+    int[] search(String query, boolean matchAll, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be positive.");
+        }
+        String[] tokens = tokenize(query).toArray(new String[0]);
+        if (tokens.length == 0) {
+            return new int[0];
+        }
+        TopN top = new TopN(limit);
+        for (Partition partition : partitions) {
+            partition.search(tokens, matchAll, top);
+        }
+        return top.toArray();
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    private static Doc analyze(String name, String description) {
+        Set<String> terms = tokenize(name);
+        int nameTerms = terms.size();
+        terms.addAll(tokenize(description));
+        return new Doc(terms.toArray(new String[0]), nameTerms, name, description);
+    }
+
+    private static int score(Doc doc, String[] tokens) {
+        int score = 0;
+        for (String token : tokens) {
+            int best = 0;
+            for (int i = 0; i < doc.terms.length; i++) {
+                if (doc.terms[i].startsWith(token)) {
+                    int weight = i < doc.nameTerms ? NAME_WEIGHT : DESCRIPTION_WEIGHT;
+                    if (doc.terms[i].length() == token.length()) {
+                        weight += EXACT_BONUS;
+                    }
+                    best = Math.max(best, weight);
+                }
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private static boolean containsAll(List<List<Postings>> matches, int id) {
+        for (List<Postings> sets : matches) {
+            boolean found = false;
+            for (Postings set : sets) {
+                if (set.contains(id)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int total(List<Postings> sets) {
+        int total = 0;
+        for (Postings set : sets) {
+            total += set.size();
+        }
+        return total;
+    }
+
+    private static int[] union(List<Postings> sets) {
+        if (sets.size() == 1) {
+            return sets.get(0).toArray();
+        }
+        IntSet union = new IntSet();
+        for (Postings set : sets) {
+            for (int i = 0; i < set.size(); i++) {
+                union.add(set.get(i));
+            }
+        }
+        return union.toArray();
+    }
+
+    // Часть индекса: terms - точный поиск терма, dictionary - те же списки в порядке термов для поиска по префиксу.
+    private static final class Partition {
+        private final Map<String, Postings> terms = new HashMap<>();
+        private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+        private final IntHashMap<Doc> docs = new IntHashMap<>();
+
+        // Текст не менялся (например, обновили только статус) - индекс не трогается и текст заново
+        // не разбирается. Разбор идёт вне монитора; записи одного id не бывают параллельными.
+        void add(Task task) {
+            int id = task.getId();
+            String name = task.getName();
+            String description = task.getDescription();
+            synchronized (this) {
+                Doc previous = docs.get(id);
+                if (previous != null && previous.hasText(name, description)) {
+                    return;
+                }
+            }
+            Doc doc = analyze(name, description);
+            synchronized (this) {
+                Doc previous = docs.get(id);
+                if (previous != null) {
+                    if (previous.sameAs(doc)) {
+                        previous.name = name;
+                        previous.description = description;
+                        return;
+                    }
+                    unlink(id, previous);
+                }
+                for (int i = 0; i < doc.terms.length; i++) {
+                    // хранится экземпляр строки из словаря, чтобы одинаковые термы не дублировались в памяти
+                    Postings ids = terms.get(doc.terms[i]);
+                    if (ids == null) {
+                        ids = new Postings(doc.terms[i]);
+                        terms.put(ids.term, ids);
+                        dictionary.put(ids.term, ids);
+                    }
+                    doc.terms[i] = ids.term;
+                    ids.add(id);
+                }
+                docs.put(id, doc);
+            }
+        }
+
+        synchronized void remove(int id) {
+            Doc doc = docs.remove(id);
+            if (doc != null) {
+                unlink(id, doc);
+            }
+        }
+
+        synchronized boolean isEmpty() {
+            return docs.isEmpty();
+        }
+
+        synchronized void search(String[] tokens, boolean matchAll, TopN top) {
+            List<List<Postings>> matches = new ArrayList<>(tokens.length);
+            for (String token : tokens) {
+                matches.add(new ArrayList<>(dictionary.subMap(token, true, token + Character.MAX_VALUE, false).values()));
+            }
+            if (matchAll) {
+                // кандидаты - из самого редкого слова, остальные слова только проверяются
+                int rarest = 0;
+                for (int i = 0; i < matches.size(); i++) {
+                    if (matches.get(i).isEmpty()) {
+                        return;
+                    }
+                    if (total(matches.get(i)) < total(matches.get(rarest))) {
+                        rarest = i;
+                    }
+                }
+                for (int id : union(matches.get(rarest))) {
+                    if (containsAll(matches, id)) {
+                        top.offer(id, score(docs.get(id), tokens));
+                    }
+                }
+            } else {
+                List<Postings> all = new ArrayList<>();
+                matches.forEach(all::addAll);
+                for (int id : union(all)) {
+                    top.offer(id, score(docs.get(id), tokens));
+                }
+            }
+        }
+
+        private void unlink(int id, Doc doc) {
+            for (String term : doc.terms) {
+                Postings ids = terms.get(term);
+                ids.remove(id);
+                if (ids.size() == 0) {
+                    terms.remove(term);
+                    dictionary.remove(term);
+                }
+            }
+        }
+    }
+
+    private static final class Postings {
+        private final String term;
+        private int[] ids = new int[2];
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0) {
+                    return;
+                }
+                insert(-position - 1, id);
+            } else {
+                insert(size, id);
+            }
+        }
+
+        private void remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+        }
+
+        private boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int get(int position) {
+            return ids[position];
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        private void insert(int position, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+    }
+
+    // Термы документа без повторов: сначала из названия, затем только из описания.
+    // Исходный текст хранится, чтобы повторная запись того же текста не разбиралась заново;
+    // благодаря TextPool это обычно те же экземпляры строк, что и в задаче.
+    private static final class Doc {
+        private final String[] terms;
+        private final int nameTerms;
+        private String name;
+        private String description;
+
+        private Doc(String[] terms, int nameTerms, String name, String description) {
+            this.terms = terms;
+            this.nameTerms = nameTerms;
+            this.name = name;
+            this.description = description;
+        }
+
+        private boolean hasText(String name, String description) {
+            return Objects.equals(this.name, name) && Objects.equals(this.description, description);
+        }
+
+        private boolean sameAs(Doc other) {
+            return nameTerms == other.nameTerms && Arrays.equals(terms, other.terms);
+        }
+    }
+
+    // Лучшие limit результатов: куча по ключу (оценка, затем меньший id).
+    private static final class TopN {
+        private final int limit;
+        private final PriorityQueue<Long> heap = new PriorityQueue<>();
+
+        private TopN(int limit) {
+            this.limit = limit;
+        }
+
+        private void offer(int id, int score) {
+            long key = ((long) score << 32) | (Integer.MAX_VALUE - id);
+            if (heap.size() < limit) {
+                heap.add(key);
+            } else if (key > heap.peek()) {
+                heap.poll();
+                heap.add(key);
+            }
+        }
+
+        private int[] toArray() {
+            int[] ids = new int[heap.size()];
+            for (int i = ids.length - 1; i >= 0; i--) {
+                ids[i] = Integer.MAX_VALUE - (int) (heap.poll() & 0xFFFFFFFFL);
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package taskmanager.metrics;
+
+// Снимок метрик истории просмотров: hit - повторный просмотр задачи, которая уже есть в истории.
+public class HistoryStats {
+    private final long adds;
+    private final long hits;
+    private final long evictions;
+
+    public HistoryStats(long adds, long hits, long evictions) {
+        this.adds = adds;
+        this.hits = hits;
+        this.evictions = evictions;
+    }
+
+    public long getAdds() {
+        return adds;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public double getHitRate() {
+        return adds == 0 ? 0 : (double) hits / adds;
+    }
+
+    public double getEvictionRate() {
+        return adds == 0 ? 0 : (double) evictions / adds;
+    }
+}
@@ -0,0 +1,34 @@
+package taskmanager.metrics;
+
+import java.util.Map;
+
+// Метрики менеджера на момент вызова snapshot(). persistence и history - null,
+// если менеджер не пишет на диск или у него нет InMemoryHistoryManager.
+public class MetricsSnapshot {
+    private final Map<String, OperationStats> operations;
+    private final PersistenceStats persistence;
+    private final HistoryStats history;
+
+    public MetricsSnapshot(Map<String, OperationStats> operations, PersistenceStats persistence,
+                           HistoryStats history) {
+        this.operations = operations;
+        this.persistence = persistence;
+        this.history = history;
+    }
+
+    public Map<String, OperationStats> getOperations() {
+        return operations;
+    }
+
+    public OperationStats getOperation(String name) {
+        return operations.get(name);
+    }
+
+    public PersistenceStats getPersistence() {
+        return persistence;
+    }
+
+    public HistoryStats getHistory() {
+        return history;
+    }
+}
@@ -0,0 +1,62 @@
+package taskmanager.metrics;
+
+// Снимок метрик одной операции. Время - в микросекундах.
+public class OperationStats {
+    private final long count;
+    private final long errors;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p90Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+
+    public OperationStats(long errors, LatencyHistogram latency) {
+        this.count = latency.count();
+        this.errors = errors;
+        this.meanMicros = latency.mean() / 1000.0;
+        this.p50Micros = latency.percentile(0.5) / 1000.0;
+        this.p90Micros = latency.percentile(0.9) / 1000.0;
+        this.p99Micros = latency.percentile(0.99) / 1000.0;
+        this.p999Micros = latency.percentile(0.999) / 1000.0;
+        this.maxMicros = latency.max() / 1000.0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public double getP50Micros() {
+        return p50Micros;
+    }
+
+    public double getP90Micros() {
+        return p90Micros;
+    }
+
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    public double getP999Micros() {
+        return p999Micros;
+    }
+
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d errors=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus",
+                count, errors, meanMicros, p50Micros, p99Micros, maxMicros);
+    }
+}
@@ -0,0 +1,56 @@
+package taskmanager.metrics;
+
+// Снимок метрик записи на диск FileBackedTaskManager.
+public class PersistenceStats {
+    private final long snapshotBytes;
+    private final long lastSnapshotBytes;
+    private final OperationStats snapshotWrites;
+    private final long journalAppends;
+    private final long journalBytes;
+    private final long journalSize;
+
+    public PersistenceStats(long snapshotBytes, long lastSnapshotBytes, OperationStats snapshotWrites,
+                            long journalAppends, long journalBytes, long journalSize) {
+        this.snapshotBytes = snapshotBytes;
+        this.lastSnapshotBytes = lastSnapshotBytes;
+        this.snapshotWrites = snapshotWrites;
+        this.journalAppends = journalAppends;
+        this.journalBytes = journalBytes;
+        this.journalSize = journalSize;
+    }
+
+    public long getSnapshotCount() {
+        return snapshotWrites.getCount();
+    }
+
+    public long getSnapshotBytes() {
+        return snapshotBytes;
+    }
+
+    public long getLastSnapshotBytes() {
+        return lastSnapshotBytes;
+    }
+
+    // Средний размер одного сохранения.
+    public double getBytesPerSnapshot() {
+        long count = snapshotWrites.getCount();
+        return count == 0 ? 0 : (double) snapshotBytes / count;
+    }
+
+    // Длительность записи снимка (запись во временный файл и переименование).
+    public OperationStats getSnapshotWrites() {
+        return snapshotWrites;
+    }
+
+    public long getJournalAppends() {
+        return journalAppends;
+    }
+
+    public long getJournalBytes() {
+        return journalBytes;
+    }
+
+    public long getJournalSize() {
+        return journalSize;
+    }
+}
@@ -0,0 +1,18 @@
+package taskmanager.metrics;
+
+import java.util.Map;
+
+// Атрибуты, видимые через JMX (jconsole, VisualVM): taskmanager:type=TaskManagerMetrics,name=...
+public interface TaskManagerMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Map<String, OperationStats> getOperations();
+
+    PersistenceStats getPersistence();
+
+    HistoryStats getHistoryStats();
+
+    void reset();
+}
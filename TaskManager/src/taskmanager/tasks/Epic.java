@@ -1,11 +1,21 @@
 package taskmanager.tasks;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 
 public class Epic extends Task {
-    private final List<Subtask> subtasks = new ArrayList<>();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final Map<Integer, Subtask> subtasks = new LinkedHashMap<>();
+    private final Collection<Subtask> subtasksView = Collections.unmodifiableCollection(subtasks.values());
+    // Число подзадач в каждом статусе: статус эпика считается за O(1), без обхода подзадач.
+    private final int[] statusCounts = new int[STATUSES.length];
 
     public Epic(int id, String name, String description) {
         super(id, name, description);
@@ -15,17 +25,69 @@ public class Epic extends Task {
         super(0, name, description);
     }
 
+    // Копия полей эпика без подзадач: связи с подзадачами хранит менеджер.
+    public Epic(Epic epic) {
+        super(epic);
+    }
+
     public List<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks);
+        return new ArrayList<>(subtasks.values());
     }
 
-    public void addSubtask(Subtask subtask) {
-        subtasks.add(subtask);
+    // Живое представление без копирования. Нельзя менять эпик, пока идёт обход.
+    public Collection<Subtask> getSubtasksView() {
+        return subtasksView;
+    }
+
+    // Добавляет подзадачу или пересчитывает её вклад, если она уже есть (например, сменился статус).
+    // Если подзадача была привязана к другому эпику, она оттуда убирается, и этот эпик возвращается.
+    public Epic addSubtask(Subtask subtask) {
+        Epic movedFrom = null;
+        if (subtask.linkedEpic != null && subtask.linkedEpic != this) {
+            movedFrom = subtask.linkedEpic;
+            movedFrom.removeSubtask(subtask);
+        }
+        Subtask previous = subtasks.put(subtask.getId(), subtask);
+        if (previous != null) {
+            statusCounts[previous.countedStatus.ordinal()]--;
+            previous.linkedEpic = null;
+        }
+        subtask.linkedEpic = this;
+        subtask.countedStatus = subtask.getStatus();
+        statusCounts[subtask.countedStatus.ordinal()]++;
+        return movedFrom;
     }
 
     public void removeSubtask(Subtask subtask) {
-        subtasks.remove(subtask);
+        Subtask removed = subtasks.remove(subtask.getId());
+        if (removed != null) {
+            statusCounts[removed.countedStatus.ordinal()]--;
+            removed.linkedEpic = null;
+        }
     }
 
+    public void clearSubtasks() {
+        subtasks.values().forEach(subtask -> subtask.linkedEpic = null);
+        subtasks.clear();
+        Arrays.fill(statusCounts, 0);
+    }
 
+    public boolean hasSubtask(int id) {
+        return subtasks.containsKey(id);
+    }
+
+    public int getSubtaskCount(TaskStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    public TaskStatus calculateStatus() {
+        int total = subtasks.size();
+        if (total == statusCounts[TaskStatus.NEW.ordinal()]) {
+            return TaskStatus.NEW;
+        }
+        if (total == statusCounts[TaskStatus.DONE.ordinal()]) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
 }
@@ -1,9 +0,0 @@
-class Node {
-    Task task;
-    Node prev;
-    Node next;
-
-    public Node(Task task) {
-        this.task = task;
-    }
-}
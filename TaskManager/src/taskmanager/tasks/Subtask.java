@@ -2,13 +2,21 @@ package taskmanager.tasks;
 
 public class Subtask extends Task {
     private int epicId;
-
+    // Заполняются эпиком в addSubtask: куда подзадача посчитана и в каком статусе.
+    Epic linkedEpic;
+    TaskStatus countedStatus;
 
     public Subtask(String name, String description, int epicId) {
         super(name, description);
         this.epicId = epicId;
     }
 
+    // Копия не привязана к эпику: getLinkedEpicId() у неё 0.
+    public Subtask(Subtask subtask) {
+        super(subtask);
+        this.epicId = subtask.getEpicId();
+    }
+
     public int getEpicId() {
         return epicId;
     }
@@ -17,6 +25,12 @@ public class Subtask extends Task {
         this.epicId = epicId;
     }
 
+    // Эпик, к которому подзадача сейчас привязана в менеджере (0 - ни к какому).
+    // Может отличаться от epicId, пока изменённая подзадача не передана в updateSubtask.
+    public int getLinkedEpicId() {
+        return linkedEpic == null ? 0 : linkedEpic.getId();
+    }
+
     @Override
     public String toString() {
         return "Subtask{" +
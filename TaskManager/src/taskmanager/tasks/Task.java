@@ -1,25 +1,27 @@
 package taskmanager.tasks;
 
-import java.util.Objects;
-
 public class Task {
     private int id;
     private String name;
     private String description;
     private TaskStatus status;
+    // Версия последнего изменения в менеджере (0 - ещё не менялась), см. TaskManager.getChangesSince.
+    private long version;
 
     public Task(int id, String name, String description) {
         this.id = id;
-        this.name = name;
-        this.description = description;
+        this.name = TextPool.intern(name);
+        this.description = TextPool.intern(description);
         this.status = TaskStatus.NEW;
     }
 
+    // Через геттеры, чтобы копировались и представления, которые хранят поля вне объекта.
     public Task(Task task) {
-        this.id = task.id;
-        this.name = task.name;
-        this.description = task.description;
-        this.status = task.status;
+        this.id = task.getId();
+        this.name = TextPool.intern(task.getName());
+        this.description = TextPool.intern(task.getDescription());
+        this.status = task.getStatus();
+        this.version = task.getVersion();
     }
 
 
@@ -39,6 +41,14 @@ public class Task {
         this.status = status;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -48,7 +58,7 @@ public class Task {
     }
 
     public void setDescription(String description) {
-        this.description = description;
+        this.description = TextPool.intern(description);
     }
 
     public Task(String name, String description) {
@@ -59,8 +69,8 @@ public class Task {
     public String toString() {
         return "Task{" +
                 "id=" + id +
-                ", name='" + name + '\'' +
-                ", description='" + description + '\'' +
+                ", name='" + getName() + '\'' +
+                ", description='" + getDescription() + '\'' +
                 '}';
     }
 
@@ -72,9 +82,10 @@ public class Task {
         return this.id == task.id && this.getClass() == task.getClass();
     }
 
+    // Только по id, как и equals: правка текста не меняет хеш задачи, уже лежащей в HashSet/HashMap.
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, description);
+        return Integer.hashCode(id);
     }
 
 
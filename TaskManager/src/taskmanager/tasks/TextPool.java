@@ -0,0 +1,39 @@
+package taskmanager.tasks;
+
+// Пул строк для названий и описаний задач: одинаковый текст из шаблонов хранится одной строкой.
+// Таблица фиксированного размера без блокировок, слот выбирается по хешу строки. При коллизии
+// слот просто перезаписывается, поэтому пул не растёт и не держит уникальные строки, а часто
+// повторяющиеся быстро оседают в своих слотах. Гонки безопасны: строка неизменяема, а найденное
+// значение всё равно сравнивается через equals. Размер - -Dtaskmanager.textPool (0 - выключен).
+public final class TextPool {
+    private static final String[] TABLE = createTable(Integer.getInteger("taskmanager.textPool", 1 << 16));
+
+    private TextPool() {
+    }
+
+    private static String[] createTable(int size) {
+        if (size <= 0) {
+            return null;
+        }
+        // Степень двойки, округление вниз.
+        return new String[Integer.highestOneBit(Math.min(size, 1 << 24))];
+    }
+
+    public static String intern(String text) {
+        if (TABLE == null || text == null) {
+            return text;
+        }
+        int hash = text.hashCode();
+        int index = (hash ^ (hash >>> 16)) & (TABLE.length - 1);
+        String pooled = TABLE[index];
+        if (pooled == text || text.equals(pooled)) {
+            return pooled;
+        }
+        TABLE[index] = text;
+        return text;
+    }
+
+    public static boolean isEnabled() {
+        return TABLE != null;
+    }
+}
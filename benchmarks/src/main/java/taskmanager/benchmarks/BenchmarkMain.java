@@ -0,0 +1,20 @@
+package taskmanager.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Точка входа benchmarks.jar: то же, что org.openjdk.jmh.Main, но GC-профайлер включён всегда,
+// чтобы в отчёте была скорость выделения памяти (gc.alloc.rate.norm - байт на операцию).
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-prof")) {
+            options.add("-prof");
+            options.add("gc");
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,48 @@
+package taskmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import taskmanager.managers.InMemoryTaskManager;
+import taskmanager.tasks.Epic;
+import taskmanager.tasks.Subtask;
+import taskmanager.tasks.TaskStatus;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Пересчёт статуса большого эпика: updateSubtask меняет статус одной подзадачи,
+// после чего менеджер вызывает updateEpicStatus.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EpicStatusBenchmark {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    @Param({"10", "1000", "100000"})
+    int subtaskCount;
+
+    private InMemoryTaskManager manager;
+    private Subtask[] subtasks;
+
+    @Setup
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        int epicId = manager.addNewEpic(new Epic("Epic", "Description"));
+        subtasks = new Subtask[subtaskCount];
+        for (int i = 0; i < subtaskCount; i++) {
+            subtasks[i] = new Subtask("Subtask " + i, "Description", epicId);
+            manager.addNewSubtask(subtasks[i]);
+        }
+    }
+
+    @Benchmark
+    public TaskStatus updateSubtaskStatus() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Subtask subtask = subtasks[random.nextInt(subtaskCount)];
+        subtask.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+        manager.updateSubtask(subtask);
+        return manager.getEpic(subtask.getEpicId()).getStatus();
+    }
+}
@@ -0,0 +1,72 @@
+package taskmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import taskmanager.managers.FileBackedTaskManager;
+import taskmanager.managers.PersistenceMode;
+import taskmanager.managers.PersistenceOptions;
+import taskmanager.managers.SnapshotFormat;
+import taskmanager.tasks.Epic;
+import taskmanager.tasks.Subtask;
+import taskmanager.tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Полное сохранение снимка (checkpoint) и загрузка из файла. Доска: задачи, эпики по 10 подзадач.
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class FileBackedBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"CSV", "BINARY"})
+    SnapshotFormat format;
+
+    private File file;
+    private PersistenceOptions options;
+    private FileBackedTaskManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("taskmanager-bench", ".csv").toFile();
+        options = PersistenceOptions.synchronous(PersistenceMode.SNAPSHOT).withFormat(format);
+        manager = new FileBackedTaskManager(file, options);
+        manager.batch(tx -> {
+            int tasks = size / 2;
+            for (int i = 0; i < tasks; i++) {
+                tx.addNewTask(new Task("Task " + i, "Description of task " + i));
+            }
+            for (int created = tasks; created < size; created += 11) {
+                int epicId = tx.addNewEpic(new Epic("Epic " + created, "Description"));
+                for (int i = 0; i < 10; i++) {
+                    tx.addNewSubtask(new Subtask("Subtask " + i, "Description", epicId));
+                }
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.close();
+        file.delete();
+        new File(file.getPath() + ".journal").delete();
+    }
+
+    @Benchmark
+    public void save() {
+        manager.checkpoint();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager load() {
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, options);
+        loaded.close();
+        return loaded;
+    }
+}
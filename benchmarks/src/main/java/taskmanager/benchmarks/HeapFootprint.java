@@ -0,0 +1,80 @@
+package taskmanager.benchmarks;
+
+import taskmanager.managers.InMemoryTaskManager;
+import taskmanager.managers.Managers;
+import taskmanager.managers.OffHeapTaskManager;
+import taskmanager.managers.TaskManager;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+import taskmanager.tasks.TextPool;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Занятая куча после загрузки и паузы GC под нагрузкой обновлений - то, чего JMH не показывает.
+// java -Xmx4g -cp benchmarks.jar taskmanager.benchmarks.HeapFootprint [heap|offHeap] [число задач] [число шаблонов]
+// С числом шаблонов тексты задач повторяются, как на досках из шаблонов; каждая строка создаётся
+// заново, как при разборе JSON или файла. Выигрыш TextPool - сравнить с -Dtaskmanager.textPool=0.
+// Каждый вариант запускать в отдельной JVM, чтобы куча одного не влияла на другой.
+public class HeapFootprint {
+    public static void main(String[] args) {
+        String backend = args.length > 0 ? args[0] : "offHeap";
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int templates = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        long before = usedHeapAfterGc();
+        TaskManager manager = backend.equals("offHeap")
+                ? new OffHeapTaskManager(Managers.getDefaultHistory())
+                : new InMemoryTaskManager(Managers.getDefaultHistory());
+        for (int i = 0; i < size; i++) {
+            int text = templates > 0 ? i % templates : i;
+            manager.addNewTask(new Task("Task " + text, "Description of task " + text));
+        }
+        long retained = usedHeapAfterGc() - before;
+
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long start = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 5_000_000; i++) {
+            Task task = manager.getTask(1 + random.nextInt(size));
+            task.setStatus(task.getStatus() == TaskStatus.NEW ? TaskStatus.DONE : TaskStatus.NEW);
+            manager.updateTask(task);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%s, %d tasks, %s, text pool %s: heap %.1f MB (%.1f bytes/task)%n",
+                backend, size, templates > 0 ? templates + " templates" : "unique texts",
+                TextPool.isEnabled() ? "on" : "off", retained / 1048576.0, (double) retained / size);
+        if (manager instanceof OffHeapTaskManager) {
+            System.out.printf("  off-heap %.1f MB%n", ((OffHeapTaskManager) manager).getOffHeapBytes() / 1048576.0);
+        }
+        System.out.printf("  5M updates: %d ms, %d collections, %d ms in GC%n",
+                elapsedMillis, gcCount() - gcCount, gcMillis() - gcMillis);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += bean.getCollectionCount();
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += bean.getCollectionTime();
+        }
+        return millis;
+    }
+}
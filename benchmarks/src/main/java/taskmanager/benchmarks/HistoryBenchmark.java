@@ -0,0 +1,45 @@
+package taskmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import taskmanager.managers.HistoryManager;
+import taskmanager.managers.Managers;
+import taskmanager.tasks.Task;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// HistoryManager.add при постоянном вытеснении: задач в пуле намного больше ёмкости истории.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HistoryBenchmark {
+    private static final int POOL = 10_000;
+
+    @Param({"10", "1000"})
+    int capacity;
+
+    @Param({"inMemory", "concurrent"})
+    String implementation;
+
+    private HistoryManager history;
+    private Task[] tasks;
+
+    @Setup
+    public void setUp() {
+        history = implementation.equals("concurrent")
+                ? Managers.getConcurrentHistory(capacity)
+                : Managers.getDefaultHistory(capacity);
+        tasks = new Task[POOL];
+        for (int i = 0; i < POOL; i++) {
+            tasks[i] = new Task(i + 1, "Task " + i, "Description");
+        }
+    }
+
+    @Benchmark
+    public void addWithEviction() {
+        history.add(tasks[ThreadLocalRandom.current().nextInt(POOL)]);
+    }
+}
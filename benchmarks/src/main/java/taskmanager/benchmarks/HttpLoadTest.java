@@ -0,0 +1,118 @@
+package taskmanager.benchmarks;
+
+import taskmanager.http.HttpTaskServer;
+import taskmanager.managers.ConcurrentTaskManager;
+import taskmanager.metrics.LatencyHistogram;
+import taskmanager.tasks.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Нагрузочный тест HttpTaskServer целиком на localhost: сервер и клиенты в одной JVM.
+// Каждый клиент - виртуальный поток с keep-alive соединением (HttpURLConnection); 80% GET /tasks/{id}, 20% POST обновлений.
+// java -cp benchmarks.jar taskmanager.benchmarks.HttpLoadTest [клиентов] [секунд] [задач]
+public class HttpLoadTest {
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int tasks = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+
+        ConcurrentTaskManager manager = new ConcurrentTaskManager();
+        for (int i = 0; i < tasks; i++) {
+            manager.addNewTask(new Task("Task " + i, "Description"));
+        }
+        HttpTaskServer server = new HttpTaskServer(manager,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        String base = "http://127.0.0.1:" + server.getPort();
+
+        LatencyHistogram reads = new LatencyHistogram();
+        LatencyHistogram writes = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        // прогрев
+        run(base, tasks, clients, System.nanoTime() + 2_000_000_000L, new LatencyHistogram(),
+                new LatencyHistogram(), new LongAdder(), executor);
+        long start = System.nanoTime();
+        run(base, tasks, clients, start + seconds * 1_000_000_000L, reads, writes, errors, executor);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long total = reads.count() + writes.count();
+        System.out.printf("%d clients, %d s: %d requests, %.0f req/s, %d errors%n",
+                clients, seconds, total, total / elapsed, errors.sum());
+        print("GET ", reads);
+        print("POST", writes);
+
+        executor.close();
+        server.stop(0);
+    }
+
+    private static void run(String base, int tasks, int clients, long deadline, LatencyHistogram reads,
+                            LatencyHistogram writes, LongAdder errors, ExecutorService executor) throws Exception {
+        List<Future<?>> workers = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            workers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int id = 1 + random.nextInt(tasks);
+                    boolean write = random.nextInt(5) == 0;
+                    long began = System.nanoTime();
+                    try {
+                        int status = write
+                                ? request(base + "/tasks", "{\"id\":" + id + ",\"name\":\"Task\",\"status\":\"IN_PROGRESS\"}")
+                                : request(base + "/tasks/" + id, null);
+                        if (status >= 300) {
+                            errors.increment();
+                        }
+                    } catch (IOException e) {
+                        errors.increment();
+                    }
+                    (write ? writes : reads).record(System.nanoTime() - began);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+    }
+
+    // HttpURLConnection переиспользует соединение, если тело ответа дочитано до конца.
+    private static int request(String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+        if (body != null) {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                in.readAllBytes();
+            }
+        }
+        return status;
+    }
+
+    private static void print(String name, LatencyHistogram histogram) {
+        System.out.printf("  %s p50 %d us, p99 %d us, p99.9 %d us, max %d us%n", name,
+                histogram.percentile(0.5) / 1000, histogram.percentile(0.99) / 1000,
+                histogram.percentile(0.999) / 1000, histogram.max() / 1000);
+    }
+}
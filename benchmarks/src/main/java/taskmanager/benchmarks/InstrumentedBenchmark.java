@@ -0,0 +1,48 @@
+package taskmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import taskmanager.managers.InstrumentedTaskManager;
+import taskmanager.managers.Managers;
+import taskmanager.managers.TaskManager;
+import taskmanager.tasks.Task;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Цена обёртки с метриками: getTask без обёртки, с выключенными и с включёнными метриками.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InstrumentedBenchmark {
+    private static final int SIZE = 10_000;
+
+    @Param({"raw", "disabled", "enabled"})
+    String mode;
+
+    private TaskManager manager;
+    private int firstId;
+
+    @Setup
+    public void setUp() {
+        TaskManager plain = Managers.getDefault();
+        if (mode.equals("raw")) {
+            manager = plain;
+        } else {
+            InstrumentedTaskManager instrumented = Managers.instrument(plain);
+            instrumented.setEnabled(mode.equals("enabled"));
+            manager = instrumented;
+        }
+        firstId = manager.addNewTask(new Task("Task", "Description"));
+        for (int i = 1; i < SIZE; i++) {
+            manager.addNewTask(new Task("Task " + i, "Description"));
+        }
+    }
+
+    @Benchmark
+    public Task getTask() {
+        return manager.getTask(firstId + ThreadLocalRandom.current().nextInt(SIZE));
+    }
+}
@@ -0,0 +1,67 @@
+package taskmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import taskmanager.managers.InMemoryTaskManager;
+import taskmanager.managers.Managers;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Основные операции InMemoryTaskManager на заполненном менеджере.
+// Throughput - операций в секунду, SampleTime - перцентили задержки.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ManagerBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    private InMemoryTaskManager manager;
+    private int firstId;
+    private int nextToRemove;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        manager = new InMemoryTaskManager(Managers.getDefaultHistory());
+        firstId = manager.addNewTask(new Task("Task 0", "Description"));
+        for (int i = 1; i < size; i++) {
+            manager.addNewTask(new Task("Task " + i, "Description"));
+        }
+        nextToRemove = firstId;
+    }
+
+    private int randomId() {
+        return firstId + ThreadLocalRandom.current().nextInt(size);
+    }
+
+    @Benchmark
+    public int add() {
+        return manager.addNewTask(new Task("New task", "Description"));
+    }
+
+    @Benchmark
+    public Task get() {
+        return manager.getTask(randomId());
+    }
+
+    @Benchmark
+    public void update(Blackhole blackhole) {
+        Task task = new Task(randomId(), "Updated task", "Description");
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(task);
+        blackhole.consume(task);
+    }
+
+    // Удаление с добавлением новой задачи, чтобы размер менеджера не менялся.
+    @Benchmark
+    public int removeAndAdd() {
+        manager.removeTask(nextToRemove++);
+        return manager.addNewTask(new Task("Replacement", "Description"));
+    }
+}
@@ -0,0 +1,71 @@
+package taskmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import taskmanager.managers.InMemoryTaskManager;
+import taskmanager.managers.Managers;
+import taskmanager.managers.OffHeapTaskManager;
+import taskmanager.managers.TaskManager;
+import taskmanager.tasks.Task;
+import taskmanager.tasks.TaskStatus;
+import taskmanager.tasks.TaskType;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// InMemoryTaskManager против OffHeapTaskManager на большом менеджере.
+// Смотреть gc.alloc.rate.norm и gc.time из -prof gc; занятую кучу и паузы показывает HeapFootprint.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Thread)
+public class OffHeapBenchmark {
+    @Param({"100000", "1000000"})
+    int size;
+
+    @Param({"heap", "offHeap"})
+    String backend;
+
+    private TaskManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = backend.equals("offHeap")
+                ? new OffHeapTaskManager(Managers.getDefaultHistory())
+                : new InMemoryTaskManager(Managers.getDefaultHistory());
+        for (int i = 0; i < size; i++) {
+            manager.addNewTask(new Task("Task " + i, "Description of task " + i));
+        }
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(size);
+    }
+
+    @Benchmark
+    public void getAndReadName(Blackhole blackhole) {
+        blackhole.consume(manager.getTask(randomId()).getName());
+    }
+
+    @Benchmark
+    public void updateStatus() {
+        Task task = manager.getTask(randomId());
+        task.setStatus(task.getStatus() == TaskStatus.NEW ? TaskStatus.DONE : TaskStatus.NEW);
+        manager.updateTask(task);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long scanStatuses() {
+        long done = 0;
+        for (Task task : manager.view(TaskType.TASK)) {
+            if (task.getStatus() == TaskStatus.DONE) {
+                done++;
+            }
+        }
+        return done;
+    }
+}